@@ -0,0 +1,110 @@
+import java.util.ArrayList;
+
+/**
+ * The positions of the benchmarks (see benchmarks.RulesFixture): the standard 8x8 layout and the random 16x16 layout
+ * of the seed, at the start or after MIDDLEGAME_PLIES random legal moves drawn from the seed. The moves are played
+ * through a GameRecord, with the effects they land on, as a game is.
+ */
+public class BenchmarkPositions implements benchmarks.RulesFixture {
+
+    private static final int MIDDLEGAME_PLIES = 16;
+
+    private GameRecord record;
+    private GameState state;
+    private Board board;
+    private String turnColor;
+
+    private final ArrayList<Position> pieces = new ArrayList<>(); //Of the type given to setUp.
+    private final ArrayList<Position> ownPieces = new ArrayList<>(); //Of the side to move.
+    private int nextPiece;
+    private int nextOwnPiece;
+
+    public BenchmarkPositions() {
+    }
+
+    @Override
+    public void setUp(String position, long seed, String pieceType) {
+        Board initialBoard;
+        if (position.startsWith("8x8")) {
+            initialBoard = new Board();
+            PieceLayout.standardChess(initialBoard);
+        } else {
+            initialBoard = new Board(true, seed);
+            PieceLayout.randomChess(initialBoard);
+        }
+        record = new GameRecord(new GameState("white", initialBoard, null, seed));
+        state = record.getCurrentState();
+        board = state.getBoard();
+        if (position.endsWith("middlegame")) {
+            playRandomMoves(seed);
+        }
+        turnColor = state.getTurnColor();
+
+        Piece.ChessPieceType type = pieceType != null ? Piece.ChessPieceType.valueOf(pieceType) : null;
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int col = 0; col < board.getCols(); col++) {
+                Space space = board.getSpace(row, col);
+                Piece piece = space != null ? space.getPiece() : null;
+                if (piece != null && piece.getType() == type) {
+                    pieces.add(new Position(row, col));
+                }
+                if (piece != null && piece.getColor().equals(turnColor)) {
+                    ownPieces.add(new Position(row, col));
+                }
+            }
+        }
+        if (type != null && pieces.isEmpty()) {
+            throw new IllegalStateException("There is no " + type + " in the " + position + " position.");
+        }
+    }
+
+    private void playRandomMoves(long seed) {
+        GameRandom random = new GameRandom(seed);
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < MIDDLEGAME_PLIES; ply++) {
+            moves.clear();
+            state.availableMoves(board, moves);
+            if (moves.isEmpty()) {
+                break;
+            }
+            record.play(moves.get(random.nextInt(moves.size())), GameState.NO_EFFECT);
+        }
+    }
+
+    @Override
+    public int pieceMoves() {
+        Position p = pieces.get(nextPiece++ % pieces.size());
+        return board.getSpace(p.row, p.col).getPiece().getAvailableMoves(board, p.row, p.col).size();
+    }
+
+    @Override
+    public Object copyBoard() {
+        return new Board(board);
+    }
+
+    @Override
+    public boolean kingInCheck() {
+        return board.kingInCheck(turnColor);
+    }
+
+    @Override
+    public boolean hasAvailableMoveCached() {
+        return record.hasAvailableMove();
+    }
+
+    @Override
+    public boolean hasAvailableMoveUncached() {
+        return state.hasAvailableMove(board);
+    }
+
+    @Override
+    public int availableMoves() {
+        Position p = ownPieces.get(nextOwnPiece++ % ownPieces.size());
+        return state.availableMoves(board, board.getSpace(p).getPiece(), p).size();
+    }
+
+    @Override
+    public boolean isThreeFoldDraw() {
+        return record.isThreeFoldDraw();
+    }
+}
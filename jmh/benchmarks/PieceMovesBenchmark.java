@@ -0,0 +1,49 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of Piece.getAvailableMoves for each piece type, on the positions of RulesBenchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class PieceMovesBenchmark {
+
+    @Param({"8x8 start", "16x16 start", "8x8 middlegame", "16x16 middlegame"})
+    public String position;
+
+    @Param({"PAWN", "ROOK", "KNIGHT", "BISHOP", "QUEEN", "KING"})
+    public String pieceType;
+
+    @Param("42")
+    public long seed;
+
+    private RulesFixture fixture;
+
+    @Setup
+    public void setUp() {
+        fixture = RulesFixture.create();
+        fixture.setUp(position, seed, pieceType);
+    }
+
+    @Benchmark
+    public int getAvailableMoves() {
+        return fixture.pieceMoves();
+    }
+}
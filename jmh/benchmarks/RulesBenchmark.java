@@ -0,0 +1,74 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the rules code the games and the engine spend their time in: copying a Board, Board.kingInCheck,
+ * hasAvailableMove with and without the record's table, GameState.availableMoves and GameRecord.isThreeFoldDraw, on
+ * the standard and the random layout, at the start and after some random moves. Run with -prof gc for the bytes
+ * allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class RulesBenchmark {
+
+    @Param({"8x8 start", "16x16 start", "8x8 middlegame", "16x16 middlegame"})
+    public String position;
+
+    @Param("42")
+    public long seed;
+
+    private RulesFixture fixture;
+
+    @Setup
+    public void setUp() {
+        fixture = RulesFixture.create();
+        fixture.setUp(position, seed, null);
+    }
+
+    @Benchmark
+    public Object copyBoard() {
+        return fixture.copyBoard();
+    }
+
+    @Benchmark
+    public boolean kingInCheck() {
+        return fixture.kingInCheck();
+    }
+
+    @Benchmark
+    public boolean hasAvailableMoveCached() {
+        return fixture.hasAvailableMoveCached();
+    }
+
+    @Benchmark
+    public boolean hasAvailableMoveUncached() {
+        return fixture.hasAvailableMoveUncached();
+    }
+
+    @Benchmark
+    public int availableMoves() {
+        return fixture.availableMoves();
+    }
+
+    @Benchmark
+    public boolean isThreeFoldDraw() {
+        return fixture.isThreeFoldDraw();
+    }
+}
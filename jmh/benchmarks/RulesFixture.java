@@ -0,0 +1,64 @@
+package benchmarks;
+
+/**
+ * The operations of the rules code the benchmarks time, on a position set up by setUp.
+ * <p>
+ * JMH only generates benchmarks for classes in a named package, and those can't refer to the classes of the game,
+ * which are in the default package. The benchmarks call the game through this interface instead, implemented in the
+ * default package by BenchmarkPositions, which they load by name once per trial.
+ */
+public interface RulesFixture {
+
+    /**
+     * Loads the implementation of the fixture.
+     */
+    static RulesFixture create() {
+        try {
+            return (RulesFixture) Class.forName("BenchmarkPositions").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("BenchmarkPositions isn't on the class path.", e);
+        }
+    }
+
+    /**
+     * Sets up the position the operations run on.
+     *
+     * @param position  "8x8 start", "16x16 start", "8x8 middlegame" or "16x16 middlegame". The 16x16 boards are the
+     *                  random layout of the seed, and the middlegames are a number of random moves drawn from the seed.
+     * @param pieceType the Piece.ChessPieceType pieceMoves times, or null.
+     */
+    void setUp(String position, long seed, String pieceType);
+
+    /**
+     * Piece.getAvailableMoves of the next piece of the type, going through them in turn.
+     */
+    int pieceMoves();
+
+    /**
+     * A copy of the board, returned whole so the benchmark consumes all of it.
+     */
+    Object copyBoard();
+
+    boolean kingInCheck();
+
+    /**
+     * GameRecord.hasAvailableMove of the same position every time, which after the first is answered from the
+     * record's table of legal moves.
+     */
+    boolean hasAvailableMoveCached();
+
+    /**
+     * GameState.hasAvailableMove(Board), the search for a legal move without the table.
+     */
+    boolean hasAvailableMoveUncached();
+
+    /**
+     * GameState.availableMoves of the next piece of the side to move, going through them in turn.
+     */
+    int availableMoves();
+
+    /**
+     * GameRecord.isThreeFoldDraw of the record of the moves played to reach the position.
+     */
+    boolean isThreeFoldDraw();
+}
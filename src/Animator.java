@@ -0,0 +1,123 @@
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+
+/**
+ * Runs the animations of a component from a single Swing Timer, so any number of animations (every explosion of a
+ * bomb, a teleport, the slide of the piece that set them off) share one thread, the event dispatch thread, and one
+ * repaint a frame.
+ * <p>
+ * An animation lasts a given time and is drawn from its progress, from 0 when it starts to 1 when it ends, so it moves
+ * as smoothly at any frame rate. On each frame the animator marks the bounds of every running animation dirty, and the
+ * RepaintManager paints them together; the component then calls paint to draw the animations over what it painted.
+ * The timer only runs while there are animations.
+ */
+class Animator {
+
+    static final int FRAME_RATE = 60;
+
+    private final JComponent component;
+    private final Timer timer;
+    private final ArrayList<Animation> animations = new ArrayList<>();
+    private long frameTime; //System.nanoTime() of the current frame, so every animation in it is drawn at the same time.
+
+    Animator(JComponent component) {
+        this.component = component;
+        timer = new Timer(1000 / FRAME_RATE, e -> nextFrame());
+        timer.setCoalesce(true); //A late frame is skipped rather than run twice in a row.
+    }
+
+    /**
+     * Something drawn for a time over a part of the component.
+     */
+    abstract static class Animation {
+        private final Rectangle bounds;
+        private final long duration;
+        private long start;
+
+        /**
+         * @param bounds   the part of the component the animation draws in.
+         * @param duration in milliseconds.
+         */
+        Animation(Rectangle bounds, long duration) {
+            this.bounds = bounds;
+            this.duration = duration * 1_000_000L;
+        }
+
+        Rectangle getBounds() {
+            return bounds;
+        }
+
+        /**
+         * Draws the animation, clipped to its bounds.
+         *
+         * @param progress from 0 when the animation starts to 1 when it ends.
+         */
+        abstract void paint(Graphics2D g, double progress);
+
+        /**
+         * Called once the animation has ended or was stopped.
+         */
+        void finished() {
+        }
+    }
+
+    /**
+     * Starts the animation after the given delay, in milliseconds. It is drawn from when it starts until it ends.
+     */
+    void add(Animation animation, long delay) {
+        animation.start = System.nanoTime() + delay * 1_000_000L;
+        animations.add(animation);
+        if (!timer.isRunning()) {
+            frameTime = System.nanoTime();
+            timer.start();
+        }
+    }
+
+    /**
+     * Stops every animation, as when the component shows another game.
+     */
+    void clear() {
+        for (Animation animation : animations) {
+            component.repaint(animation.bounds);
+            animation.finished();
+        }
+        animations.clear();
+        timer.stop();
+    }
+
+    /**
+     * Draws the animations of the current frame that have started and are inside the clip, in the order they were
+     * added.
+     */
+    void paint(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        for (Animation animation : animations) {
+            if (frameTime < animation.start || (clip != null && !clip.intersects(animation.bounds))) {
+                continue;
+            }
+            double progress = Math.min(1, (double) (frameTime - animation.start) / animation.duration);
+            Graphics2D g2 = (Graphics2D) g.create();
+            g2.clipRect(animation.bounds.x, animation.bounds.y, animation.bounds.width, animation.bounds.height);
+            animation.paint(g2, progress);
+            g2.dispose();
+        }
+    }
+
+    private void nextFrame() {
+        frameTime = System.nanoTime();
+        for (int i = 0; i < animations.size(); i++) {
+            Animation animation = animations.get(i);
+            if (frameTime >= animation.start) {
+                component.repaint(animation.bounds);
+            }
+            if (frameTime >= animation.start + animation.duration) {
+                animations.remove(i--); //Its bounds are painted once more, without it.
+                animation.finished();
+            }
+        }
+        if (animations.isEmpty()) {
+            timer.stop();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Loads the assets of the game (see ImageManager and AudioManager) on a pool of background threads, so the window is
+ * shown while they are decoded, and times each one for the startup report.
+ * <p>
+ * Assets are started in the order they are asked for, so the ones the main menu shows are asked for first. An asset
+ * that is used before it was asked for is loaded on the thread that uses it, the first time it is used.
+ */
+class AssetLoader {
+
+    private static final long start = System.nanoTime(); //The loader is first used as the game starts.
+    private static final int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    private static final ExecutorService pool = Executors.newFixedThreadPool(THREADS, task -> {
+        Thread thread = new Thread(task, "Asset loader");
+        thread.setDaemon(true); //Doesn't keep the game running once the window is closed.
+        return thread;
+    });
+
+    private static final ConcurrentLinkedQueue<CompletableFuture<?>> loads = new ConcurrentLinkedQueue<>();
+    private static final ConcurrentLinkedQueue<Timing> timings = new ConcurrentLinkedQueue<>();
+    private static final ConcurrentLinkedQueue<Timing> milestones = new ConcurrentLinkedQueue<>();
+
+    private AssetLoader() {
+    }
+
+    /**
+     * Time an asset took to load, or when something happened during startup.
+     */
+    private static class Timing {
+        final String name;
+        final long start; //Nanoseconds since the game started.
+        final long duration;
+        final boolean onFirstUse;
+
+        Timing(String name, long start, long duration, boolean onFirstUse) {
+            this.name = name;
+            this.start = start;
+            this.duration = duration;
+            this.onFirstUse = onFirstUse;
+        }
+    }
+
+    /**
+     * Starts loading an asset on the pool.
+     *
+     * @param asset  name of the asset in the report.
+     * @param loader loads the asset. It must not throw, but return what stands for a missing asset.
+     */
+    static <T> CompletableFuture<T> load(String asset, Supplier<T> loader) {
+        CompletableFuture<T> load = CompletableFuture.supplyAsync(() -> time(asset, loader, false), pool);
+        loads.add(load);
+        return load;
+    }
+
+    /**
+     * Loads an asset on this thread, the first time it is used.
+     */
+    static <T> T loadNow(String asset, Supplier<T> loader) {
+        return time(asset, loader, true);
+    }
+
+    private static <T> T time(String asset, Supplier<T> loader, boolean onFirstUse) {
+        long begin = System.nanoTime();
+        try {
+            return loader.get();
+        } finally {
+            long end = System.nanoTime();
+            timings.add(new Timing(asset, begin - start, end - begin, onFirstUse));
+        }
+    }
+
+    /**
+     * Notes the time something happened, such as the main menu being shown, for the report.
+     */
+    static void mark(String milestone) {
+        milestones.add(new Timing(milestone, System.nanoTime() - start, 0, false));
+    }
+
+    /**
+     * @return a future completed when every asset asked for so far is loaded.
+     */
+    static CompletableFuture<Void> whenLoaded() {
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Prints how long startup took: when each milestone was reached, when the assets were loaded and the time of each
+     * asset, from the slowest.
+     */
+    static void printReport() {
+        ArrayList<Timing> assets = new ArrayList<>(timings);
+        long loaded = 0;
+        long loading = 0;
+        for (Timing timing : assets) {
+            loaded = Math.max(loaded, timing.start + timing.duration);
+            loading += timing.duration;
+        }
+
+        System.out.printf("Startup: %d assets loaded at %.0f ms, %.0f ms of loading on %d threads%n", assets.size(),
+                loaded / 1e6, loading / 1e6, THREADS);
+        for (Timing milestone : milestones) {
+            System.out.printf("  %-44s at %7.1f ms%n", milestone.name, milestone.start / 1e6);
+        }
+        assets.sort(Comparator.comparingLong((Timing timing) -> timing.duration).reversed());
+        for (Timing timing : assets) {
+            System.out.printf("  %-44s %7.1f ms, started at %7.1f ms%s%n", timing.name, timing.duration / 1e6,
+                    timing.start / 1e6, timing.onFirstUse ? " on first use" : "");
+        }
+    }
+}
@@ -1,10 +1,23 @@
 import javax.sound.sampled.*;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Plays the sound effects and the music.
+ * <p>
+ * The sound effects are decoded once, on AssetLoader's threads when the AudioManager is created, and each is played
+ * through a few clips that are opened once and reused. Playing one doesn't read the disk or open an audio line, and
+ * returns right away; a sound played before it is loaded isn't heard.
+ */
 class AudioManager {
-    private File clickFile = new File("assets/219069__annabloom__click1.wav");
-    private File boom = new File("assets/250712__aiwha__explosion.wav");
-    private File teleport = new File("assets/448226__inspectorj__explosion-8-bit-01.wav");
+    private static final int CLIPS_PER_SOUND = 4; //How many times a sound can overlap itself, as with quick clicks.
+
+    private Sound click = new Sound(new File("assets/219069__annabloom__click1.wav"));
+    private Sound boom = new Sound(new File("assets/250712__aiwha__explosion.wav"));
+    private Sound teleport = new Sound(new File("assets/448226__inspectorj__explosion-8-bit-01.wav"));
+    private Sound silence = new Sound(new File("assets/silence.wav"));
     private File uke_song = new File("assets/bensound-ukulele.wav");
 
     private static final AudioManager audioManager = new AudioManager();
@@ -19,26 +32,16 @@ class AudioManager {
     }
 
     void playClick() {
-        playSound(clickFile);
+        playSound(click);
     }
 
-    private void playSound(File file) {
-        playSound(file, 0);
+    private void playSound(Sound sound) {
+        playSound(sound, 0);
     }
 
-    private void playSound(File file, float gain) {
+    private void playSound(Sound sound, float gain) {
         if (!(boolean) gameSettings.get(GameSettings.MUTED)) {
-            try {
-                AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(file);
-                Clip clip = AudioSystem.getClip();
-                clip.open(audioInputStream);
-                FloatControl gainControl = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
-                gainControl.setValue(gain);
-                clip.start();
-            } catch (Exception ex) {
-                System.out.println("Error with playing sound.");
-                ex.printStackTrace();
-            }
+            sound.play(gain);
         }
     }
 
@@ -87,20 +90,104 @@ class AudioManager {
         playSound(teleport, -25);
     }
 
+    /**
+     * Plays the sound of an effect, if it did something to the piece that set it off.
+     */
+    void playEffect(EffectResult result) {
+        if (!result.changedLandingPiece()) {
+            return;
+        }
+        switch (result.type) {
+            case Bomb:
+                playBoom();
+                break;
+            case SwitchPiece:
+                playTele();
+                break;
+        }
+    }
+
     //Makes sure audio streams are open
     void playTestSound() {
-        File file = new File("assets/silence.wav");
-        try {
-            AudioInputStream audioInputStream = AudioSystem.getAudioInputStream(file);
-            Clip clip = AudioSystem.getClip();
-            clip.open(audioInputStream);
-            FloatControl volume = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
-            volume.setValue(0.0f);
+        silence.clips.thenRun(() -> silence.play(0));
+    }
+
+    /**
+     * A sound effect, decoded into PCM and loaded into CLIPS_PER_SOUND clips. Each play takes the clip that was started
+     * the longest time ago, so a sound can overlap itself, and restarts the oldest one if they are all playing.
+     */
+    private static class Sound {
+        private final CompletableFuture<Clip[]> clips; //None if the sound couldn't be loaded.
+        private int next;
+
+        Sound(File file) {
+            clips = AssetLoader.load(file.getName(), () -> load(file));
+        }
+
+        private static Clip[] load(File file) {
+            try (AudioInputStream stream = decode(AudioSystem.getAudioInputStream(file))) {
+                AudioFormat format = stream.getFormat();
+                byte[] data = readAll(stream);
+
+                Clip[] clips = new Clip[CLIPS_PER_SOUND];
+                try {
+                    for (int i = 0; i < clips.length; i++) {
+                        clips[i] = AudioSystem.getClip();
+                        clips[i].open(format, data, 0, data.length);
+                    }
+                } catch (LineUnavailableException | RuntimeException e) {
+                    for (Clip clip : clips) {
+                        if (clip != null) {
+                            clip.close();
+                        }
+                    }
+                    throw e;
+                }
+                return clips;
+            } catch (Exception ex) {
+                System.out.println("Could not load sound " + file + ": " + ex);
+                return new Clip[0];
+            }
+        }
+
+        synchronized void play(float gain) {
+            Clip[] clips = this.clips.getNow(null);
+            if (clips == null || clips.length == 0) {
+                return;
+            }
+            Clip clip = clips[next];
+            next = (next + 1) % clips.length;
+
+            clip.stop();
+            clip.setFramePosition(0);
+            if (clip.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
+                FloatControl gainControl = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
+                gainControl.setValue(Math.max(gainControl.getMinimum(), Math.min(gainControl.getMaximum(), gain)));
+            }
             clip.start();
-            volume.setValue(1.0f);
-        } catch (Exception ex) {
-            System.out.println("Error with playing sound.");
-            ex.printStackTrace();
+        }
+
+        /**
+         * @return the stream as signed PCM, which every clip can play.
+         */
+        private static AudioInputStream decode(AudioInputStream stream) {
+            AudioFormat format = stream.getFormat();
+            if (format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED) {
+                return stream;
+            }
+            AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
+                    format.getChannels(), format.getChannels() * 2, format.getSampleRate(), false);
+            return AudioSystem.getAudioInputStream(pcm, stream);
+        }
+
+        private static byte[] readAll(AudioInputStream stream) throws IOException {
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) > 0) {
+                data.write(buffer, 0, read);
+            }
+            return data.toByteArray();
         }
     }
 }
@@ -1,5 +1,3 @@
-import java.util.HashSet;
-
 public class Bishop extends Piece {
 
     private String color;
@@ -12,8 +10,8 @@ public class Bishop extends Piece {
     }
 
     @Override
-    public HashSet<Position> getAvailableMoves(Board board, int row, int col) {
-        return getAvailableDiagonalMoves(board, row, col);
+    void generateMoves(Board board, int row, int col, MoveList moves) {
+        generateSlidingMoves(board, row, col, false, true, moves);
     }
 
     public int getValue() {
@@ -0,0 +1,409 @@
+import java.io.Serializable;
+
+/**
+ * Primitive core of a Board. Every property of the board is stored as a 256-bit mask (four longs), with one bit per
+ * square:
+ * <p>
+ * - which squares exist (a null Space in the Board means the bit is off)
+ * - which squares are occupied by each color
+ * - which squares are occupied by each piece type
+ * - which squares carry each kind of Effect
+ * <p>
+ * Squares are indexed as row * 16 + col, so a board can be at most 16x16. Each long holds four rows of the board.
+ * <p>
+ * Board keeps this in sync with its Space[][] array, so the masks can be used for fast queries (move and attack
+ * generation) without walking Space and Piece objects.
+ */
+class BitBoard implements Serializable {
+
+    static final int STRIDE = 16; //Number of squares reserved per row.
+    static final int SQUARES = STRIDE * STRIDE;
+    static final int WORDS = SQUARES / 64;
+
+    static final int WHITE = 0;
+    static final int BLACK = 1;
+
+    private static final int[][] ORTHOGONAL_DIRECTIONS = {{-1, 0}, {0, 1}, {1, 0}, {0, -1}};
+    private static final int[][] DIAGONAL_DIRECTIONS = {{-1, 1}, {1, 1}, {1, -1}, {-1, -1}};
+    private static final int[][] KNIGHT_DIRECTIONS = {{2, 1}, {2, -1}, {-1, 2}, {-1, -2}, {-2, 1}, {-2, -1}, {1, 2},
+            {1, -2}};
+
+    //Squares reachable by a single knight or king step from each square, ignoring which squares exist.
+    private static final long[][] KNIGHT_STEPS = stepTable(KNIGHT_DIRECTIONS);
+    private static final long[][] KING_STEPS = stepTable(concat(ORTHOGONAL_DIRECTIONS, DIAGONAL_DIRECTIONS));
+
+    private final long[] exists = new long[WORDS];
+    private final long[][] colors = new long[2][WORDS];
+    private final long[][] types = new long[Piece.ChessPieceType.values().length][WORDS];
+    private final long[][] effects = new long[Effect.EffectType.values().length][WORDS];
+
+    static int square(int row, int col) {
+        return row * STRIDE + col;
+    }
+
+    static int row(int square) {
+        return square / STRIDE;
+    }
+
+    static int col(int square) {
+        return square % STRIDE;
+    }
+
+    static int colorIndex(String color) {
+        return color.equals("black") ? BLACK : WHITE;
+    }
+
+    static boolean test(long[] mask, int square) {
+        return (mask[square >>> 6] & (1L << square)) != 0;
+    }
+
+    static void set(long[] mask, int square) {
+        mask[square >>> 6] |= 1L << square;
+    }
+
+    private static void clear(long[] mask, int square) {
+        mask[square >>> 6] &= ~(1L << square);
+    }
+
+    static void clearAll(long[] mask) {
+        for (int i = 0; i < WORDS; i++) {
+            mask[i] = 0;
+        }
+    }
+
+    /**
+     * Returns the lowest square set in the mask, or -1 if the mask is empty.
+     */
+    static int firstSquare(long[] mask) {
+        for (int i = 0; i < WORDS; i++) {
+            if (mask[i] != 0) {
+                return (i << 6) | Long.numberOfTrailingZeros(mask[i]);
+            }
+        }
+        return -1;
+    }
+
+    void setExists(int square, boolean exists) {
+        if (exists) {
+            set(this.exists, square);
+        } else {
+            clear(this.exists, square);
+        }
+    }
+
+    boolean exists(int square) {
+        return test(exists, square);
+    }
+
+    boolean isOccupied(int square) {
+        return test(colors[WHITE], square) || test(colors[BLACK], square);
+    }
+
+    boolean isEmptySpace(int square) {
+        return exists(square) && !isOccupied(square);
+    }
+
+    /**
+     * @return the color index of the piece on the square, or -1 if there is no piece.
+     */
+    int colorAt(int square) {
+        if (test(colors[WHITE], square)) return WHITE;
+        if (test(colors[BLACK], square)) return BLACK;
+        return -1;
+    }
+
+    void addPiece(int square, Piece piece) {
+        set(colors[colorIndex(piece.getColor())], square);
+        set(types[piece.getType().ordinal()], square);
+    }
+
+    void removePiece(int square, Piece piece) {
+        clear(colors[colorIndex(piece.getColor())], square);
+        clear(types[piece.getType().ordinal()], square);
+    }
+
+    void setEffect(int square, Effect effect, boolean present) {
+        if (present) {
+            set(effects[effect.getType().ordinal()], square);
+        } else {
+            clear(effects[effect.getType().ordinal()], square);
+        }
+    }
+
+    long[] getExists() {
+        return exists;
+    }
+
+    long[] getColor(int color) {
+        return colors[color];
+    }
+
+    long[] getType(Piece.ChessPieceType type) {
+        return types[type.ordinal()];
+    }
+
+    long[] getEffect(Effect.EffectType type) {
+        return effects[type.ordinal()];
+    }
+
+    /**
+     * Writes the squares of the given type and color into the given mask.
+     */
+    void pieces(Piece.ChessPieceType type, int color, long[] result) {
+        long[] typeMask = types[type.ordinal()];
+        long[] colorMask = colors[color];
+        for (int i = 0; i < WORDS; i++) {
+            result[i] = typeMask[i] & colorMask[i];
+        }
+    }
+
+    /**
+     * Removes every square occupied by the given color from the mask. Used to turn attacks into moves.
+     */
+    void removeColor(long[] mask, int color) {
+        long[] colorMask = colors[color];
+        for (int i = 0; i < WORDS; i++) {
+            mask[i] &= ~colorMask[i];
+        }
+    }
+
+    void knightAttacks(int square, long[] attacks) {
+        stepAttacks(KNIGHT_STEPS[square], attacks);
+    }
+
+    void kingAttacks(int square, long[] attacks) {
+        stepAttacks(KING_STEPS[square], attacks);
+    }
+
+    private void stepAttacks(long[] steps, long[] attacks) {
+        for (int i = 0; i < WORDS; i++) {
+            attacks[i] = steps[i] & exists[i];
+        }
+    }
+
+    /**
+     * Writes the squares attacked by a sliding piece on the given square into the attacks mask.
+     * A ray stops before a square that does not exist, and on the first occupied square.
+     */
+    void slidingAttacks(int square, boolean orthogonal, boolean diagonal, long[] attacks) {
+        clearAll(attacks);
+        if (orthogonal) {
+            rayAttacks(square, ORTHOGONAL_DIRECTIONS, attacks);
+        }
+        if (diagonal) {
+            rayAttacks(square, DIAGONAL_DIRECTIONS, attacks);
+        }
+    }
+
+    private void rayAttacks(int square, int[][] directions, long[] attacks) {
+        int row = row(square);
+        int col = col(square);
+        for (int[] direction : directions) {
+            int r = row + direction[0];
+            int c = col + direction[1];
+            while (r >= 0 && r < STRIDE && c >= 0 && c < STRIDE) {
+                int target = square(r, c);
+                if (!exists(target)) {
+                    break;
+                }
+                set(attacks, target);
+                if (isOccupied(target)) {
+                    break;
+                }
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+    }
+
+    /**
+     * Writes the (diagonal) squares attacked by a pawn of the given color into the attacks mask.
+     */
+    void pawnAttacks(int square, int color, long[] attacks) {
+        clearAll(attacks);
+        int r = row(square) + pawnDirection(color);
+        if (r < 0 || r >= STRIDE) {
+            return;
+        }
+        for (int c = col(square) - 1; c <= col(square) + 1; c += 2) {
+            if (c >= 0 && c < STRIDE && exists(square(r, c))) {
+                set(attacks, square(r, c));
+            }
+        }
+    }
+
+    /**
+     * Writes the squares attacked by the given piece type and color, standing on the given square.
+     */
+    void attacks(Piece.ChessPieceType type, int color, int square, long[] attacks) {
+        switch (type) {
+            case PAWN:
+                pawnAttacks(square, color, attacks);
+                break;
+            case KNIGHT:
+                knightAttacks(square, attacks);
+                break;
+            case KING:
+                kingAttacks(square, attacks);
+                break;
+            case BISHOP:
+                slidingAttacks(square, false, true, attacks);
+                break;
+            case ROOK:
+                slidingAttacks(square, true, false, attacks);
+                break;
+            case QUEEN:
+                slidingAttacks(square, true, true, attacks);
+                break;
+        }
+    }
+
+    boolean hasEffect(int square) {
+        for (long[] effect : effects) {
+            if (test(effect, square)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indicates whether a pawn of the given color on this square has reached the end of its column, meaning there
+     * are no spaces left in front of it. (See Board.pawnToQueen.)
+     */
+    boolean isPromotionSquare(int square, int color) {
+        int direction = pawnDirection(color);
+        int col = col(square);
+        for (int r = row(square) + direction; r >= 0 && r < STRIDE; r += direction) {
+            if (exists(square(r, col))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Appends a move from one square to another to the list, flagging captures and effect spaces.
+     */
+    void addMove(int from, int to, int flags, MoveList moves) {
+        if (isOccupied(to)) {
+            flags |= Move.CAPTURE;
+        }
+        if (hasEffect(to)) {
+            flags |= Move.EFFECT;
+        }
+        moves.add(Move.of(from, to, flags));
+    }
+
+    /**
+     * Appends a move from the given square to every square in the targets mask.
+     */
+    void addMoves(int from, long[] targets, MoveList moves) {
+        for (int word = 0; word < WORDS; word++) {
+            long bits = targets[word];
+            while (bits != 0) {
+                addMove(from, (word << 6) | Long.numberOfTrailingZeros(bits), 0, moves);
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    /**
+     * Indicates whether any piece of the given color attacks the square.
+     * <p>
+     * Works backwards from the square instead of generating the moves of every piece: it looks for knights and kings a
+     * single step away, pawns on the diagonals behind the square, and the first piece along each ray for sliders.
+     */
+    boolean isAttacked(int square, int color) {
+        if (!exists(square)) {
+            return false;
+        }
+        long[] attackers = colors[color];
+
+        if (intersects(KNIGHT_STEPS[square], types[Piece.ChessPieceType.KNIGHT.ordinal()], attackers)
+                || intersects(KING_STEPS[square], types[Piece.ChessPieceType.KING.ordinal()], attackers)) {
+            return true;
+        }
+
+        int row = row(square);
+        int col = col(square);
+
+        //A pawn attacks the square from one row behind it, relative to the direction that pawn moves in.
+        int pawnRow = row - pawnDirection(color);
+        if (pawnRow >= 0 && pawnRow < STRIDE) {
+            long[] pawns = types[Piece.ChessPieceType.PAWN.ordinal()];
+            for (int c = col - 1; c <= col + 1; c += 2) {
+                if (c >= 0 && c < STRIDE && test(pawns, square(pawnRow, c)) && test(attackers, square(pawnRow, c))) {
+                    return true;
+                }
+            }
+        }
+
+        long[] queens = types[Piece.ChessPieceType.QUEEN.ordinal()];
+        return raysHit(row, col, ORTHOGONAL_DIRECTIONS, types[Piece.ChessPieceType.ROOK.ordinal()], queens, attackers)
+                || raysHit(row, col, DIAGONAL_DIRECTIONS, types[Piece.ChessPieceType.BISHOP.ordinal()], queens,
+                attackers);
+    }
+
+    private static boolean intersects(long[] steps, long[] type, long[] color) {
+        for (int i = 0; i < WORDS; i++) {
+            if ((steps[i] & type[i] & color[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indicates whether the first piece along any of the rays is a slider of the given color and one of the types.
+     */
+    private boolean raysHit(int row, int col, int[][] directions, long[] type, long[] otherType, long[] color) {
+        for (int[] direction : directions) {
+            int r = row + direction[0];
+            int c = col + direction[1];
+            while (r >= 0 && r < STRIDE && c >= 0 && c < STRIDE) {
+                int target = square(r, c);
+                if (!exists(target)) {
+                    break;
+                }
+                if (isOccupied(target)) {
+                    if (test(color, target) && (test(type, target) || test(otherType, target))) {
+                        return true;
+                    }
+                    break;
+                }
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the row direction pawns of the given color move in. (Up = -1. Down = 1.)
+     */
+    static int pawnDirection(int color) {
+        return color == BLACK ? 1 : -1;
+    }
+
+    private static long[][] stepTable(int[][] directions) {
+        long[][] table = new long[SQUARES][WORDS];
+        for (int square = 0; square < SQUARES; square++) {
+            for (int[] direction : directions) {
+                int r = row(square) + direction[0];
+                int c = col(square) + direction[1];
+                if (r >= 0 && r < STRIDE && c >= 0 && c < STRIDE) {
+                    set(table[square], square(r, c));
+                }
+            }
+        }
+        return table;
+    }
+
+    private static int[][] concat(int[][] a, int[][] b) {
+        int[][] result = new int[a.length + b.length][];
+        System.arraycopy(a, 0, result, 0, a.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
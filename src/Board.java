@@ -1,9 +1,5 @@
 import java.io.Serializable;
-import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Objects;
-import java.util.Random;
 
 /**
  * Stores a chess board as an object, and provides helper methods.
@@ -13,12 +9,26 @@ import java.util.Random;
  * If the space is null, there is no space there
  * If piece is null- no piece on the space
  * If piece has(name of pieces)- that piece is on the space
+ * <p>
+ * Board is a facade over a BitBoard, which mirrors the spaces, pieces and effects as bit masks. Every Space placed on
+ * the board reports its changes back to the board, so the masks are always in sync with the Space[][] array.
+ * Boards can be at most 16x16.
  */
 public class Board implements Serializable {
 
     private Space[][] b;// 2D array that represents board.
     private int rows;
     private int cols;
+    private BitBoard core = new BitBoard(); //Bit mask representation of b.
+    private int[] kingSquares = {-1, -1}; //Square of each color's king, indexed by BitBoard color. -1 if there is none.
+    //Zobrist hashes, updated on every change. The structure key covers the spaces and pieces, which is everything
+    //equals compares, so it doubles as the cached hashCode. Effects are kept apart.
+    private long structureKey;
+    private long effectKey;
+
+    private transient UndoRecord[] undoStack; //One record per move made with makeMove and not yet unmade.
+    private transient int undoDepth;
+    private transient boolean undoing; //Set while unmakeMove restores the board, so the changes aren't journaled.
 //    private boolean[][] spaceNulls;
 
     /**
@@ -42,10 +52,11 @@ public class Board implements Serializable {
     }
 
     public Board(int rows, int cols, boolean defaultNulls) {
+        checkSize(rows, cols);
         b = new Space[rows][cols];
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
-                b[i][j] = defaultNulls ? null : new Space();
+                setSpace(defaultNulls ? null : new Space(), i, j);
             }
         }
 
@@ -53,6 +64,13 @@ public class Board implements Serializable {
         this.cols = cols;
     }
 
+    private static void checkSize(int rows, int cols) {
+        if (rows > BitBoard.STRIDE || cols > BitBoard.STRIDE) {
+            throw new IllegalArgumentException("Boards can be at most " + BitBoard.STRIDE + "x" + BitBoard.STRIDE
+                    + ", got " + rows + "x" + cols + ".");
+        }
+    }
+
     /**
      * Copy constructor
      *
@@ -70,143 +88,147 @@ public class Board implements Serializable {
                     newSpace = new Space();
 
                     Piece oldPiece = oldSpace.getPiece();
-                    Piece newPiece = null;
+                    Piece newPiece = oldPiece != null ? oldPiece.copy() : null;
                     Effect oldEffect = oldSpace.getEffect();
 
-                    if (oldPiece != null) {
-                        try {
-                            newPiece = oldSpace.getPiece()
-                                    .getClass()
-                                    .getConstructor(String.class)
-                                    .newInstance(oldSpace.getPiece().getColor());
-                        } catch (InstantiationException | IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
-                            e.printStackTrace();
-                        }
-                    }
                     if (oldEffect!=null){
                         newSpace.setEffect(oldEffect);
                     }
 
                     newSpace.setPiece(newPiece);
                 }
-                b[i][j] = newSpace;
+                setSpace(newSpace, i, j);
             }
         }
     }
 
     public Board(boolean isRandom) {
-        this(16, isRandom);
+        this(16, isRandom, new GameRandom(GameRandom.newSeed()));
+    }
+
+    /**
+     * Makes a random board the same way as Board(boolean), but always the same one for a given seed.
+     */
+    public Board(boolean isRandom, long seed) {
+        this(16, isRandom, new GameRandom(seed));
+    }
+
+    /**
+     * Makes a random board, drawing the layout and the tile effects from the given generator.
+     */
+    Board(boolean isRandom, GameRandom randomNum) {
+        this(16, isRandom, randomNum);
     }
 
     //WARNING! DOES NOT WORK WITH SIZES OTHER THAN 16x16!
     //TODO: Make this solution more general and then make it public
     //TODO: Make this constructor fall through to a default when isRandom = false
-    private Board(int size, boolean isRandom) {
+    private Board(int size, boolean isRandom, GameRandom randomNum) {
         if (isRandom) {
 //            spaceNulls = new boolean[size][size];
             b = new Space[size][size];
             rows = size;
             cols = size;
-            Random randomNum = new Random();
             int row;
             int column;
 
             for (row = 4; row < 7; row++) {
                 for (column = 4; column <= 11; column++) {
-                    b[row][column] = new Space();
+                    setSpace(new Space(), row, column);
                 }
             }
             for (row = 9; row < 12; row++) {
                 for (column = 4; column <= 11; column++) {
-                    b[row][column] = new Space();
+                    setSpace(new Space(), row, column);
                 }
             }
 
             //Randomize middle part of board
             int i = 0;
             if (8 > randomNum.nextInt(10)) {
-                createTile(4, 7, 1, 2);
-                createTile(11, 7, 1, 2);
+                createTile(4, 7, 1, 2, randomNum);
+                createTile(11, 7, 1, 2, randomNum);
                 i++;
             }
             if (8 > randomNum.nextInt(10)) {
-                createTile(5, 7, 1, 2);
-                createTile(10, 7, 1, 2);
+                createTile(5, 7, 1, 2, randomNum);
+                createTile(10, 7, 1, 2, randomNum);
                 i++;
             }
             if (8 > randomNum.nextInt(10)) {
-                createTile(6, 7, 1, 2);
-                createTile(9, 7, 1, 2);
+                createTile(6, 7, 1, 2, randomNum);
+                createTile(9, 7, 1, 2, randomNum);
                 i++;
             }
             if (8 > randomNum.nextInt(10)) {
-                createTile(7, 7, 1, 2);
-                createTile(8, 7, 1, 2);
+                createTile(7, 7, 1, 2, randomNum);
+                createTile(8, 7, 1, 2, randomNum);
                 i++;
             }
             if (i == 0) {
-                createTile(6, 7, 1, 2);
-                createTile(9, 7, 1, 2);
-                createTile(7, 7, 1, 2);
-                createTile(8, 7, 1, 2);
+                createTile(6, 7, 1, 2, randomNum);
+                createTile(9, 7, 1, 2, randomNum);
+                createTile(7, 7, 1, 2, randomNum);
+                createTile(8, 7, 1, 2, randomNum);
             }
             //randomizing corner parts
             int rand = randomNum.nextInt(3);
             if (0 == rand) {
-                createTile(1, 1, 4, 6);
-                createTile(11, 1, 4, 6);
-                createTile(1, 9, 4, 6);
-                createTile(11, 9, 4, 6);
+                createTile(1, 1, 4, 6, randomNum);
+                createTile(11, 1, 4, 6, randomNum);
+                createTile(1, 9, 4, 6, randomNum);
+                createTile(11, 9, 4, 6, randomNum);
             } else if (1 == rand) {
-                createTile(2, 2, 3, 5);
-                createTile(11, 2, 3, 5);
-                createTile(2, 9, 3, 5);
-                createTile(11, 9, 3, 5);
+                createTile(2, 2, 3, 5, randomNum);
+                createTile(11, 2, 3, 5, randomNum);
+                createTile(2, 9, 3, 5, randomNum);
+                createTile(11, 9, 3, 5, randomNum);
             } else {
-                createTile(5, 3, 2, 4);
-                createTile(9, 3, 2, 4);
-                createTile(5, 9, 2, 4);
-                createTile(9, 9, 2, 4);
+                createTile(5, 3, 2, 4, randomNum);
+                createTile(9, 3, 2, 4, randomNum);
+                createTile(5, 9, 2, 4, randomNum);
+                createTile(9, 9, 2, 4, randomNum);
             }
             //randomizing side parts
             int rand2 = randomNum.nextInt(4);
             if (rand2 == 0) {
-                createTile(1, 6, 3, 4);
-                createTile(12, 6, 3, 4);
+                createTile(1, 6, 3, 4, randomNum);
+                createTile(12, 6, 3, 4, randomNum);
             }
             if (rand2 == 1 || rand2 == 2) {
-                createTile(2, 6, 2, 4);
-                createTile(12, 6, 2, 4);
+                createTile(2, 6, 2, 4, randomNum);
+                createTile(12, 6, 2, 4, randomNum);
             }
             if (rand2 == 2 || rand2 == 1 || rand == 2) {
-                createTile(3, 6, 1, 4);
-                createTile(12, 6, 1, 4);
+                createTile(3, 6, 1, 4, randomNum);
+                createTile(12, 6, 1, 4, randomNum);
             }
             if (0 == randomNum.nextInt(2)) {
-                createTile(6, 12, 4, 2);
-                createTile(6, 2, 4, 2);
+                createTile(6, 12, 4, 2, randomNum);
+                createTile(6, 2, 4, 2, randomNum);
             }
             if (0 == randomNum.nextInt(2)) {
-                createTile(6, 12, 4, 1);
-                createTile(6, 3, 4, 1);
+                createTile(6, 12, 4, 1, randomNum);
+                createTile(6, 3, 4, 1, randomNum);
             }
             if (0 == randomNum.nextInt(2)) {
-                createTile(5, 3, 6, 1);
-                createTile(5, 12, 6, 1);
+                createTile(5, 3, 6, 1, randomNum);
+                createTile(5, 12, 6, 1, randomNum);
             }
         }
     }
 
-    private void createTile(int startColumn, int startRow, int width, int height) {
+    private void createTile(int startColumn, int startRow, int width, int height, GameRandom randomNum) {
         for (int m_startRow = startRow; m_startRow < height + startRow; m_startRow++)
             for (int m_startColumn = startColumn; m_startColumn < width + startColumn; m_startColumn++) {
-                b[m_startRow][m_startColumn] = new Space(true);
+                setSpace(new Space(randomNum), m_startRow, m_startColumn);
             }
     }
 
 
     /**
      * Returns the explicit array that Board implies.
+     * The array must be treated as read-only; use setSpace to place a Space so that the board stays in sync.
      *
      * @return Space[][] of all the space that the board contains
      */
@@ -230,7 +252,222 @@ public class Board implements Serializable {
     }
 
     public void setSpace(Space sp, int row, int col) {
+        int square = BitBoard.square(row, col);
+        Space oldSpace = b[row][col];
+        journal(UndoRecord.SPACE, square, oldSpace);
+
+        if (oldSpace != null) {
+            oldSpace.attach(null, 0, 0);
+            updatePiece(square, oldSpace.getPiece(), null);
+            updateEffect(square, oldSpace.getEffect(), null);
+        }
+
         b[row][col] = sp;
+        if (core.exists(square) != (sp != null)) {
+            structureKey ^= Zobrist.space(square);
+        }
+        core.setExists(square, sp != null);
+
+        if (sp != null) {
+            sp.attach(this, row, col);
+            updatePiece(square, null, sp.getPiece());
+            updateEffect(square, null, sp.getEffect());
+        }
+    }
+
+    /**
+     * Called by a Space on this board whenever its piece changes.
+     */
+    void pieceChanged(int row, int col, Piece oldPiece, Piece newPiece) {
+        int square = BitBoard.square(row, col);
+        journal(UndoRecord.PIECE, square, oldPiece);
+        updatePiece(square, oldPiece, newPiece);
+    }
+
+    /**
+     * Called by a Space on this board whenever its effect changes.
+     */
+    void effectChanged(int row, int col, Effect oldEffect, Effect newEffect) {
+        int square = BitBoard.square(row, col);
+        journal(UndoRecord.EFFECT, square, oldEffect);
+        updateEffect(square, oldEffect, newEffect);
+    }
+
+    private void updatePiece(int square, Piece oldPiece, Piece newPiece) {
+        if (oldPiece != null) {
+            core.removePiece(square, oldPiece);
+            structureKey ^= Zobrist.piece(oldPiece, square);
+            if (oldPiece.getType() == Piece.ChessPieceType.KING) {
+                int color = BitBoard.colorIndex(oldPiece.getColor());
+                if (kingSquares[color] == square) {
+                    //Only happens when the king is taken off the board, since moves place the king before removing it.
+                    long[] kings = new long[BitBoard.WORDS];
+                    core.pieces(Piece.ChessPieceType.KING, color, kings);
+                    kingSquares[color] = BitBoard.firstSquare(kings);
+                }
+            }
+        }
+        if (newPiece != null) {
+            core.addPiece(square, newPiece);
+            structureKey ^= Zobrist.piece(newPiece, square);
+            if (newPiece.getType() == Piece.ChessPieceType.KING) {
+                kingSquares[BitBoard.colorIndex(newPiece.getColor())] = square;
+            }
+        }
+    }
+
+    private void updateEffect(int square, Effect oldEffect, Effect newEffect) {
+        if (oldEffect != null) {
+            core.setEffect(square, oldEffect, false);
+            effectKey ^= Zobrist.effect(oldEffect, square);
+        }
+        if (newEffect != null) {
+            core.setEffect(square, newEffect, true);
+            effectKey ^= Zobrist.effect(newEffect, square);
+        }
+    }
+
+    /**
+     * Records a change in the undo record of the move currently being made, if there is one.
+     */
+    private void journal(int kind, int square, Object previousValue) {
+        if (undoDepth > 0 && !undoing) {
+            undoStack[undoDepth - 1].record(kind, square, previousValue);
+        }
+    }
+
+    /**
+     * Appends the moves of every piece of the given color (see BitBoard.WHITE and BLACK). Moves may leave the king in
+     * check.
+     */
+    void generateMoves(int color, MoveList moves) {
+        long[] pieces = core.getColor(color);
+        for (int word = 0; word < BitBoard.WORDS; word++) {
+            long bits = pieces[word];
+            while (bits != 0) {
+                int square = (word << 6) | Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                int row = BitBoard.row(square);
+                int col = BitBoard.col(square);
+                b[row][col].getPiece().generateMoves(this, row, col, moves);
+            }
+        }
+    }
+
+    /**
+     * Makes a move in place, without checking it. The move must come from the generateMoves method of the piece on its
+     * from square.
+     * <p>
+     * Behaves like Piece.move: the piece is moved (capturing whatever was on the destination), pawns have their move
+     * count incremented and are promoted by pawnToQueen. Everything that changes until the matching unmakeMove,
+     * including anything done by an Effect, is recorded so that unmakeMove can restore it.
+     *
+     * @param move packed move (see Move)
+     * @return the captured piece, or null if the move did not capture anything.
+     */
+    Piece makeMove(int move) {
+        UndoRecord undo = pushUndoRecord(move);
+
+        int fromRow = BitBoard.row(Move.from(move));
+        int fromCol = BitBoard.col(Move.from(move));
+        int toRow = BitBoard.row(Move.to(move));
+        int toCol = BitBoard.col(Move.to(move));
+
+        Space fromSpace = b[fromRow][fromCol];
+        Space toSpace = b[toRow][toCol];
+        Piece piece = fromSpace.getPiece();
+
+        undo.movedPiece = piece;
+        undo.movedPieceMoveCount = piece.getMoveCount();
+        undo.capturedPiece = toSpace.getPiece();
+
+        toSpace.setPiece(piece);
+        fromSpace.setPiece(null);
+
+        if (piece.getType() == Piece.ChessPieceType.PAWN) {
+            piece.setMoveCount(piece.getMoveCount() + 1);
+            pawnToQueen(piece.getColor(), toRow, toCol);
+        }
+
+        return undo.capturedPiece;
+    }
+
+    /**
+     * Takes back the last move made with makeMove, along with every change recorded since.
+     *
+     * @return the piece the move captured, or null if it did not capture anything.
+     */
+    Piece unmakeMove() {
+        if (undoDepth == 0) {
+            throw new IllegalStateException("There is no move to unmake.");
+        }
+        UndoRecord undo = undoStack[--undoDepth];
+
+        undoing = true;
+        for (int i = undo.size() - 1; i >= 0; i--) {
+            int square = undo.getSquare(i);
+            int row = BitBoard.row(square);
+            int col = BitBoard.col(square);
+            Object previousValue = undo.getPreviousValue(i);
+
+            switch (undo.getKind(i)) {
+                case UndoRecord.PIECE:
+                    b[row][col].setPiece((Piece) previousValue);
+                    break;
+                case UndoRecord.SPACE:
+                    setSpace((Space) previousValue, row, col);
+                    break;
+                case UndoRecord.EFFECT:
+                    b[row][col].setEffect((Effect) previousValue);
+                    break;
+            }
+        }
+        undoing = false;
+
+        undo.movedPiece.setMoveCount(undo.movedPieceMoveCount);
+        Piece captured = undo.capturedPiece;
+        undo.reset(Move.NONE);
+        return captured;
+    }
+
+    /**
+     * Forgets every move made so far, so that they can't be unmade anymore. Games that only go forward call this after
+     * each move, instead of keeping a record of the whole game.
+     */
+    void clearUndoHistory() {
+        while (undoDepth > 0) {
+            undoStack[--undoDepth].reset(Move.NONE);
+        }
+    }
+
+    private UndoRecord pushUndoRecord(int move) {
+        if (undoStack == null) {
+            undoStack = new UndoRecord[16];
+        } else if (undoDepth == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoDepth * 2);
+        }
+        if (undoStack[undoDepth] == null) {
+            undoStack[undoDepth] = new UndoRecord();
+        }
+
+        UndoRecord undo = undoStack[undoDepth++];
+        undo.reset(move);
+        return undo;
+    }
+
+    /**
+     * @return the Zobrist hash of the board: which spaces exist, and the pieces and effects on them. (See Zobrist.)
+     */
+    long getZobristKey() {
+        return structureKey ^ effectKey;
+    }
+
+    /**
+     * @return the bit mask representation of this board. Must only be modified through the Board and its Spaces.
+     */
+    BitBoard getBitBoard() {
+        return core;
     }
 
     public int getRows() {
@@ -246,47 +483,29 @@ public class Board implements Serializable {
     }
 
     /**
-     * kingInCheck method returns true if the opposite king's position
-     * is in the possible moves of a piece on the current board
+     * kingInCheck method returns true if the king of the given color is attacked by a piece of the other color.
+     * The position of each king is tracked as pieces are placed and removed, so no search of the board is needed.
      */
     public boolean kingInCheck(String color) {
-        boolean foundKing = false;
-        boolean checkKing = false;
-        Position kingPosition = new Position(-1, -1);
-
-        // find kings position to compare to possible moves
-        for (int i = 0; i < getRows() && !foundKing; i++) {
-            for (int j = 0; j < getCols() && !foundKing; j++) {
-                Space pieceSpace = getSpace(i, j);
-                if (pieceSpace != null) {
-                    if ((pieceSpace.getPiece() != null) && (pieceSpace.getPiece().getType() == Piece.ChessPieceType.KING)
-                            && pieceSpace.getPiece().getColor().equals(color)) {
-                        kingPosition = new Position(i, j);
-                        foundKing = true;
-                    }
-                }
-            }
-        }
+        int kingColor = BitBoard.colorIndex(color);
+        int kingSquare = kingSquares[kingColor];
 
-        //then takes the set of all possible moves and sees if they contain the kings position
-        for (int a = 0; a < getRows() && !checkKing; a++) {
-            for (int b = 0; b < getCols() && !checkKing; b++) {
-                Position p = new Position(a, b);
-                if (Piece.isASpace(this, p)) {
-                    Space space = getSpace(p);
-                    if (Piece.hasAPiece(this, p)) {
-                        if (!space.getPiece().getColor().equals(color)) {
-                            HashSet<Position> moves = space.getPiece().getAvailableMoves(this, p);
-                            if (moves.contains(kingPosition)) {
-                                checkKing = true;
-                            }
-                        }
-                    }
-                }
-            }
-        }
+        return kingSquare >= 0 && core.isAttacked(kingSquare, 1 - kingColor);
+    }
 
-        return checkKing;
+    /**
+     * @return the position of the king of the given color, or null if that color has no king on the board.
+     */
+    public Position getKingPosition(String color) {
+        int kingSquare = kingSquares[BitBoard.colorIndex(color)];
+        return kingSquare >= 0 ? new Position(BitBoard.row(kingSquare), BitBoard.col(kingSquare)) : null;
+    }
+
+    /**
+     * Indicates whether the space at the given row and col is attacked by any piece of the given color.
+     */
+    public boolean isSquareAttacked(int row, int col, String byColor) {
+        return core.isAttacked(BitBoard.square(row, col), BitBoard.colorIndex(byColor));
     }
 
     @Override
@@ -296,14 +515,18 @@ public class Board implements Serializable {
         Board board = (Board) o;
         return rows == board.rows &&
                 cols == board.cols &&
+                structureKey == board.structureKey &&
                 Arrays.deepEquals(b, board.b);
     }
 
+    /**
+     * Content based hash, consistent with equals: it depends only on the size of the board, which spaces exist and the
+     * type and color of the pieces on them. It is maintained incrementally, so it costs nothing to call and equal
+     * positions can be used as HashMap keys (for caches, transposition tables and repetition maps).
+     */
     @Override
     public int hashCode() {
-        int result = Objects.hash(rows, cols);
-        result = 31 * result + Arrays.hashCode(b);
-        return result;
+        return 31 * (31 * rows + cols) + Long.hashCode(structureKey);
     }
 
     public void pawnToQueen(String color, int row, int col) {
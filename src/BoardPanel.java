@@ -3,6 +3,8 @@ import java.awt.*;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 /**
  * This will be the panel containing the chess board and is where the game is played.
@@ -10,212 +12,215 @@ import java.util.HashSet;
 
 public class BoardPanel extends JPanel {
 
-    private BoardButton[][] boardButtons;
+    private BoardView boardView;
 
     private Position selectedPosition; //Piece that corresponds to the highlighted spaces
     private HashSet<Position> highlightedSpaces = new HashSet<>();
     private GameState currentState;
-    private ArrayList<GameState> gameStates;
+    private GameRecord record; //The moves played so far, which repetitions, undo and saves work from.
     private boolean canPlay = true;
+    private Board board;
+
+    private boolean computerPlayer; //If true, the computer plays COMPUTER_COLOR.
+    private static ParallelEngine engine; //Created for the first computer move, then shared by every game.
+    private static final String COMPUTER_COLOR = "black";
+    private static final long COMPUTER_MOVE_TIME = 1500; //Milliseconds the computer thinks about each move.
 
     private ArrayList<ActionListener> changeTurnListeners = new ArrayList<>();
     private ArrayList<ActionListener> newGameListeners = new ArrayList<>();
     private ArrayList<ActionListener> saveListeners = new ArrayList<>();
+    private ArrayList<Consumer<EffectResult>> effectListeners = new ArrayList<>();
 
     private enum EndGameStates {CHECKMATE, STALEMATE, THREEFOLD_REPETITION, FIFTY_MOVE_DRAW}
 
-    static String STATES = "this.game_states";
-
     @SuppressWarnings("Duplicates")
-    BoardPanel(ArrayList<GameState> mGameStates) {
+    BoardPanel(GameRecord mRecord) {
         super();
 
-        gameStates = mGameStates;
+        record = mRecord;
 
-        if (!gameStates.isEmpty()) {
-            currentState = gameStates.get(gameStates.size() - 1);
-        } else {
-            gameStates = new ArrayList<>();
-            currentState = new GameState("white", new Board(true), null);
-            gameStates.add(currentState);
+        if (record == null) {
+            long seed = GameRandom.newSeed();
+            record = new GameRecord(new GameState("white", new Board(true, seed), null, seed));
         }
+        currentState = record.getCurrentState();
 
-        Board board = currentState.getBoard();
+        board = currentState.getBoard();
+        computerPlayer = (boolean) GameSettings.getInstance().get(GameSettings.COMPUTER_PLAYER);
 
-        int w = board.getRows();
-        int h = board.getCols();
-
-        setLayout(new GridLayout(h, w));
-        //Represents the max number of columns.
-        //Represents the max number of rows.
+        setLayout(new BorderLayout());
         setPreferredSize(new Dimension(700, 700));
         setMinimumSize(new Dimension(650, 650));
         setBackground(ColorGenerator.backgroundColor);
 
-        boardButtons = new BoardButton[h][w];
+        boardView = new BoardView(board, currentState.getSeed());
+        boardView.setSquareListener(this::squareClicked);
+        addEffectListener(boardView::showEffect);
+        add(boardView, BorderLayout.CENTER);
+
+        //A loaded game may be waiting for the computer's move.
+        if (isComputerTurn()) {
+            SwingUtilities.invokeLater(this::playComputerMove);
+        }
+    }
+
+    /**
+     * Selects the piece on the square, or moves the selected piece there if it can go there.
+     */
+    private void squareClicked(Position currentPosition) {
+        AudioManager.getInstance().playClick();
+
+        //Checks if the space you clicked on is null
+        if (board.getSpace(currentPosition) != null && canPlay) {
+            //Checks if you have already selected a space, if you haven't checks if there is a piece on that space.
+
+            if (selectedPosition != null) {
+                //If the move is valid, then
+                if (highlightedSpaces.contains(currentPosition)) {
+                    movePiece(selectedPosition, currentPosition);
+                } else {
+                    unhighlightSpaces();
+
+                    selectedPosition = currentPosition;
+                    Piece currentPiece = board.getSpace(selectedPosition.row, selectedPosition.col).getPiece();
+                    if (currentPiece != null && currentPiece.getColor().equals(currentState.getTurnColor())) {
+                        highlightSpaces(currentState.availableMoves(board, currentPiece, currentPosition));
+                    } else {
+                        unhighlightSpaces();
+                    }
+                }
+
+            } else if (board.getSpace(currentPosition).getPiece() != null) {
+                selectedPosition = currentPosition;
 
-        for (int i = 0; i < h; i++) {
-            for (int j = 0; j < w; j++) {
-                Space s = board.getSpace(i, j);
-                Piece piece;
-                if (s != null) {
-                    piece = s.getPiece();
+                Piece currentPiece = board.getSpace(selectedPosition.row, selectedPosition.col).getPiece();
+                if (currentPiece != null && currentPiece.getColor().equals(currentState.getTurnColor())) {
+                    highlightSpaces(currentState.availableMoves(board, currentPiece, currentPosition));
                 } else {
-                    piece = null;
+                    unhighlightSpaces();
                 }
 
-                BoardButton button = new BoardButton(i, j, s, piece);
-
-                int finalI = i;
-                int finalJ = j;
-                button.addActionListener(e -> {
-//                    System.out.println("Clicked piece at " + button.getXPos() + " " + button.getYPos());
-                    AudioManager.getInstance().playClick();
-
-                    Position currentPosition = new Position(finalI, finalJ);
-
-                    //Checks if the space you clicked on is null
-                    if (board.getSpace(currentPosition) != null && canPlay) {
-                        //Checks if you have already selected a space, if you haven't checks if there is a piece on that space.
-
-                        if (selectedPosition != null) {
-                            //If the move is valid, then
-                            if (highlightedSpaces.contains(currentPosition)) {
-                                currentState.setBoard(board);
-                                gameStates.add(new GameState(currentState));
-
-                                //De-links currentState reference
-                                currentState = new GameState(currentState);
-                                //board = currentState.getBoard();
-
-                                Piece currentPiece = board.getSpace(selectedPosition.row, selectedPosition.col).getPiece();
-                                Piece previousPiece;
-                                if (board.getSpace(currentPosition).getPiece() != null) {
-                                    previousPiece = board.getSpace(currentPosition).getPiece();
-                                } else {
-                                    previousPiece = null;
-                                }
-
-                                currentPiece.move(board, selectedPosition, currentPosition);
-
-                                //If a piece lands on an effect tile, the effect is done.
-                                if (board.getSpace(currentPosition).getEffect() != null) {
-                                    board.getSpace(currentPosition).doEffect(board.getSpace(currentPosition), board, currentPosition, boardButtons);
-//                                    gamePanel.feedBackPanel.addlabel(currentState.getTurnColor() + " landed on a " + board.getSpace(currentPosition).getEffect().getType());
-                                    currentPiece = board.getSpace(currentPosition).getPiece();
-                                }
-
-                                //Updates board in currentState.
-                                currentState = new GameState(currentState.getTurnColor(), board, currentPosition);
-
-                                BoardButton oldButton = boardButtons[selectedPosition.row][selectedPosition.col];
-
-                                oldButton.setNewIcon(null);
-                                oldButton.updateUI();
-                                //In case pawn gets turned into a a queen.
-                                if (currentPiece != null && currentPiece.getType() == Piece.ChessPieceType.PAWN) {
-                                    currentPiece = board.getSpace(currentPosition).getPiece();
-                                }
-                                boardButtons[currentPosition.row][currentPosition.col].setNewIcon(currentPiece);
-                                boardButtons[currentPosition.row][currentPosition.col].updateUI();
-
-                                //If a piece was captured, adds that piece to the list of captured pieces in the state.
-                                //Piece previousPiece = gameStates.get(gameStates.size() - 1).getBoard().getSpace(currentPosition).getPiece();
-
-                                if (previousPiece != null) {
-                                    currentState.addTakenPiece(previousPiece);
-                                    currentState.resetFiftyMoveDrawCounter();
-                                    /*} else if (currentPiece.getType() == Piece.ChessPieceType.PAWN) {
-                                        currentState.resetFiftyMoveDrawCounter(); */
-                                } else {
-                                    currentState.incrementFiftyMoveDrawCounter();
-                                }
-
-                                unhighlightSpaces();
-                                currentState.changeTurn();
-                                callListeners(changeTurnListeners);
-
-                                //Checks if the current player is in check and alerts them if they are at the start of their turn.
-                                boolean isInCheck = board.kingInCheck(currentState.getTurnColor());
-                                boolean hasAvailableMove = currentState.hasAvailableMove(board);
-
-                                if (isInCheck) {
-                                    if (!hasAvailableMove) {
+            } else {
+                unhighlightSpaces();
+            }
+        }
+    }
+
+    /**
+     * Moves the piece at from to to (the move must be one of its available moves), does the effect of the space it
+     * lands on, repaints the squares that changed, updates the game state, and checks whether the game is over.
+     * If the game goes on and it is the computer's turn, the computer then plays its move.
+     */
+    private void movePiece(Position from, Position to) {
+        boolean gameEnded = false;
+
+        //The record plays the move on the state (the effect, captures, the turn), so that undo can take it back.
+        int move = Move.of(BitBoard.square(from.row, from.col), BitBoard.square(to.row, to.col), 0);
+        boardView.slidePiece(from, to);
+        EffectResult effect = record.play(move, GameState.NO_EFFECT);
+        if (effect != null) {
+            for (Consumer<EffectResult> listener : effectListeners) {
+                listener.accept(effect);
+            }
+        }
+
+        //The view draws whatever is on the board (a promoted pawn, a switched piece), so only the squares need redrawing.
+        boardView.repaintSquare(from);
+        boardView.repaintSquare(to);
+
+        unhighlightSpaces();
+        callListeners(changeTurnListeners);
+
+        //Checks if the current player is in check and alerts them if they are at the start of their turn.
+        boolean isInCheck = board.kingInCheck(currentState.getTurnColor());
+        boolean hasAvailableMove = record.hasAvailableMove();
+
+        if (isInCheck) {
+            if (!hasAvailableMove) {
 //                                        System.out.println("Checkmate; " + currentState.getTurnColor() + " loses.");
 //                                        gamePanel.feedBackPanel.addlabel(currentState.getTurnColor() + " is in checkmate.");
-                                        canPlay = false;
+                canPlay = false;
+                gameEnded = true;
 
-                                        gameOver(currentState.getTurnColor(), EndGameStates.CHECKMATE);
-                                    } else {
-                                        //TODO: Add animation to indicate the piece is in check
+                gameOver(currentState.getTurnColor(), EndGameStates.CHECKMATE);
+            } else {
+                //TODO: Add animation to indicate the piece is in check
 //                                        System.out.println(currentState.getTurnColor() + " is in check.");
 //                                        gamePanel.feedBackPanel.addlabel(currentState.getTurnColor() + " is in check.");
-                                    }
+            }
 
-                                } else if (!hasAvailableMove) {
+        } else if (!hasAvailableMove) {
 //                                    gamePanel.feedBackPanel.addlabel("It's a stalemate.");
 //                                    gamePanel.feedBackPanel.addlabel("The game has ended in a draw.");
 
-                                    gameOver(null, EndGameStates.STALEMATE);
-                                } else if (isThreeFoldDraw()) {
+            gameEnded = true;
+            gameOver(null, EndGameStates.STALEMATE);
+        } else if (record.isThreeFoldDraw()) {
 //                                    gamePanel.feedBackPanel.addlabel("It's a threefold repetition; the same " +
 //                                            "position occurred three times, with the same player to move.");
 //                                    gamePanel.feedBackPanel.addlabel("The game has ended in a draw.");
 
-                                    gameOver(null, EndGameStates.THREEFOLD_REPETITION);
+            gameEnded = true;
+            gameOver(null, EndGameStates.THREEFOLD_REPETITION);
 
-                                } else if (currentState.fiftyMoveDraw()) {
+        } else if (currentState.fiftyMoveDraw()) {
 //                                    gamePanel.feedBackPanel.addlabel("There has been fifty moves without a capture or a pawn moving.");
 //                                    gamePanel.feedBackPanel.addlabel("The game has ended in a draw.");
 
-                                    gameOver(null, EndGameStates.FIFTY_MOVE_DRAW);
-                                }
-                            } else {
-                                unhighlightSpaces();
-
-                                selectedPosition = currentPosition;
-                                Piece currentPiece = board.getSpace(selectedPosition.row, selectedPosition.col).getPiece();
-                                if (currentPiece != null && currentPiece.getColor().equals(currentState.getTurnColor())) {
-                                    highlightSpaces(currentState.availableMoves(board, currentPiece, currentPosition));
-                                } else {
-                                    unhighlightSpaces();
-                                }
-                            }
-
-                        } else if (board.getSpace(currentPosition).getPiece() != null) {
-                            selectedPosition = currentPosition;
-
-                            Piece currentPiece = board.getSpace(selectedPosition.row, selectedPosition.col).getPiece();
-                            if (currentPiece != null && currentPiece.getColor().equals(currentState.getTurnColor())) {
-                                highlightSpaces(currentState.availableMoves(board, currentPiece, currentPosition));
-                            } else {
-                                unhighlightSpaces();
-                            }
-
-                        } else {
-                            unhighlightSpaces();
-                        }
-                    }
-                });
+            gameEnded = true;
+            gameOver(null, EndGameStates.FIFTY_MOVE_DRAW);
+        }
 
-                add(button);
-                boardButtons[i][j] = button;
-            }
+        if (!gameEnded && isComputerTurn()) {
+            playComputerMove();
+        }
+    }
+
+    private boolean isComputerTurn() {
+        return computerPlayer && currentState.getTurnColor().equals(COMPUTER_COLOR);
+    }
+
+    /**
+     * Searches for the computer's move on a worker thread, then plays it. The board can't be clicked in the meantime.
+     */
+    private void playComputerMove() {
+        if (engine == null) {
+            engine = new ParallelEngine(Runtime.getRuntime().availableProcessors(), ParallelEngine.Mode.LAZY_SMP);
         }
+        canPlay = false;
+        GameState searchState = new GameState(currentState);
+
+        new SwingWorker<SearchResult, Void>() {
+            @Override
+            protected SearchResult doInBackground() {
+                return engine.search(searchState, SearchLimits.time(COMPUTER_MOVE_TIME));
+            }
 
-        putClientProperty(STATES, gameStates);
+            @Override
+            protected void done() {
+                canPlay = true;
+                try {
+                    SearchResult result = get();
+                    if (result.hasMove()) {
+                        movePiece(Move.fromPosition(result.move), Move.toPosition(result.move));
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    e.printStackTrace();
+                }
+            }
+        }.execute();
     }
 
     private void highlightSpaces(HashSet<Position> spacesToHighlight) {
         highlightedSpaces = spacesToHighlight;
         for (Position p : highlightedSpaces) {
-            boardButtons[p.row][p.col].setHighlight(true);
+            boardView.setHighlight(p, true);
         }
     }
 
     private void unhighlightSpaces() {
         for (Position p : highlightedSpaces) {
-            boardButtons[p.row][p.col].setHighlight(false);
+            boardView.setHighlight(p, false);
         }
         highlightedSpaces.clear();
         selectedPosition = null;
@@ -234,11 +239,21 @@ public class BoardPanel extends JPanel {
         saveListeners.add(e);
     }
 
+    /**
+     * Adds a listener told what each effect did, after it was applied to the board.
+     */
+    void addEffectListener(Consumer<EffectResult> listener) {
+        effectListeners.add(listener);
+    }
+
     void save() {
-        gameStates.add(new GameState(currentState));
         callListeners(saveListeners);
     }
 
+    GameRecord getRecord() {
+        return record;
+    }
+
     private void gameOver(String winnerColor, EndGameStates state) {
         String os = System.getProperty("os.name");
         String[] options = {"New game", "Exit to main menu", "Exit to " + os};
@@ -277,37 +292,4 @@ public class BoardPanel extends JPanel {
             listener.actionPerformed(null);
         }
     }
-
-    public BoardButton getButton(int x, int y) {
-        return boardButtons[x][y];
-    }
-
-    /**
-     * Indicates whether a Three-Fold Repetition Draw has occurred.
-     * A Three-Fold Repetition is when the same position occurs three times, with the same player to move.
-     *
-     * @return true if the repetition has occurred.
-     */
-    @SuppressWarnings("Duplicates")
-    private boolean isThreeFoldDraw() {
-//        System.out.println(currentState);
-//        System.out.println(gameStates);
-
-        if (gameStates.size() > 8) {
-
-            GameState currentState = gameStates.get(gameStates.size() - 1);
-
-            int repetitions = 0;
-            for (int i = 0; i < gameStates.size() - 2; i++) {
-                if (gameStates.get(i).equals(currentState)) {
-                    repetitions++;
-                    if (repetitions == 3) {
-                        return true;
-                    }
-                }
-            }
-        }
-
-        return false;
-    }
 }
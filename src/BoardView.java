@@ -0,0 +1,412 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Draws the board as a single component: the terrain of every square, the effects, the pieces, the highlighted
+ * squares and the animations (moving pieces, explosions, teleports), which an Animator runs.
+ * <p>
+ * The terrain (grass on the spaces, dirt where there is none) never changes during a game, so it is drawn once into
+ * an image the size of the component and copied from there. Everything else is read from the Board when a square is
+ * painted; whoever changes a square calls repaintSquare, and only the squares inside the clip are drawn again.
+ * Clicks are turned into the position of the square clicked.
+ */
+class BoardView extends JComponent {
+
+    //Names of the images, which ImageManager draws at the size of a square.
+    private static final String[] lightGrassTiles = {
+            "board_tile_full3", "board_tile_full5", "board_tile_full7",
+            "board_tile_full7", "board_tile_full7", "board_tile_full7"
+    };
+    private static final String[] darkGrassTiles = {
+            "board_tile_full4", "board_tile_full6", "board_tile_full8",
+            "board_tile_full8", "board_tile_full8", "board_tile_full8"
+    };
+    private static final String[] lightDirtTiles = {
+            "board_tile_empty_dirt1", "board_tile_empty_dirt3", "board_tile_empty_dirt5",
+            "board_tile_empty_dirt5", "board_tile_empty_dirt5"
+    };
+    private static final String[] darkDirtTiles = {
+            "board_tile_empty_dirt2", "board_tile_empty_dirt4", "board_tile_empty_dirt6",
+            "board_tile_empty_dirt6", "board_tile_empty_dirt6"
+    };
+    private static final String bombSprite = "board_tile_bomb";
+    private static final String morphSprite = "board_tile_morph";
+
+    private static final double PIECE_PADDING_RATIO = 0.1;
+    private static final double EFFECT_PADDING_RATIO = 0.2;
+
+    private static final Color selectedColor = new Color(0, 255, 0);
+
+    private static final String explosionImage = "bomb_gif";
+    //Durations of the animations, in milliseconds.
+    private static final long SLIDE_DURATION = 150L;
+    private static final long EXPLOSION_DURATION = 800L;
+    private static final long TELEPORT_DURATION = 400L;
+
+    private static final ImageManager imageManager = ImageManager.getInstance();
+
+    private final Board board;
+    private final int rows;
+    private final int cols;
+    private final int[][] random; //Picks the look of each square's tile.
+    private final boolean[][] highlighted;
+    private final int[][] arriving; //Number of pieces sliding to each square, which isn't drawn there until they land.
+    private final Animator animator = new Animator(this);
+    private long slideEnd; //System.nanoTime() when the last piece lands, after which the effects of its move show.
+
+    private BufferedImage terrain; //The tiles of every square, at the current size of the component.
+
+    private Consumer<Position> squareListener;
+    private Position pressedSquare;
+
+    /**
+     * @param seed Seed of the game, so that a tile looks the same every time the game is loaded.
+     */
+    BoardView(Board board, long seed) {
+        this.board = board;
+        rows = board.getRows();
+        cols = board.getCols();
+        random = new int[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                random[row][col] = GameRandom.hash(seed, row, col);
+            }
+        }
+        highlighted = new boolean[rows][cols];
+        arriving = new int[rows][cols];
+
+        setOpaque(true);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                pressedSquare = SwingUtilities.isLeftMouseButton(e) ? squareAt(e.getX(), e.getY()) : null;
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                //Like a button, a click is a press and a release on the same square.
+                Position square = squareAt(e.getX(), e.getY());
+                if (square != null && square.equals(pressedSquare) && squareListener != null) {
+                    squareListener.accept(square);
+                }
+                pressedSquare = null;
+            }
+        });
+    }
+
+    /**
+     * @return the names of every image the board is drawn with, for ImageManager to preload.
+     */
+    static ArrayList<String> getImageNames() {
+        ArrayList<String> names = new ArrayList<>();
+        for (String[] tiles : new String[][]{lightGrassTiles, darkGrassTiles, lightDirtTiles, darkDirtTiles}) {
+            names.addAll(Arrays.asList(tiles));
+        }
+        for (Piece.ChessPieceType type : Piece.ChessPieceType.values()) {
+            names.add(type.name().toLowerCase() + "_red");
+            names.add(type.name().toLowerCase() + "_blue");
+        }
+        names.add(bombSprite);
+        names.add(morphSprite);
+        names.add(explosionImage);
+        return names;
+    }
+
+    /**
+     * Sets what is done when a square is clicked.
+     */
+    void setSquareListener(Consumer<Position> listener) {
+        squareListener = listener;
+    }
+
+    /**
+     * Draws the square again, after its piece or effect changed.
+     */
+    void repaintSquare(Position p) {
+        repaint(squareBounds(p.row, p.col));
+    }
+
+    void setHighlight(Position p, boolean highlight) {
+        if (highlighted[p.row][p.col] != highlight) {
+            highlighted[p.row][p.col] = highlight;
+            repaintSquare(p);
+        }
+    }
+
+    /**
+     * Shows what an effect did: the removed pieces explode and the replaced ones teleport.
+     */
+    void showEffect(EffectResult result) {
+        for (Position p : result.removed) {
+            explode(p);
+            repaintSquare(p);
+        }
+        for (Position p : result.replaced) {
+            teleport(p);
+            repaintSquare(p);
+        }
+    }
+
+    /**
+     * Slides the piece on from to to. Called before the move is made on the board: the piece on to is then drawn
+     * where the slide has brought it, until it lands.
+     */
+    void slidePiece(Position from, Position to) {
+        Piece piece = board.getSpace(from).getPiece();
+        if (piece == null) {
+            return;
+        }
+        String sprite = pieceSprite(piece);
+        Rectangle start = squareBounds(from.row, from.col);
+        Rectangle end = squareBounds(to.row, to.col);
+        arriving[to.row][to.col]++;
+        animator.add(new Animator.Animation(start.union(end), SLIDE_DURATION) {
+            @Override
+            void paint(Graphics2D g, double progress) {
+                double t = progress * progress * (3 - 2 * progress); //Eases in and out.
+                Rectangle bounds = new Rectangle(
+                        (int) Math.round(start.x + (end.x - start.x) * t),
+                        (int) Math.round(start.y + (end.y - start.y) * t), end.width, end.height);
+                drawScaledImage(g, bounds, PIECE_PADDING_RATIO, sprite);
+            }
+
+            @Override
+            void finished() {
+                arriving[to.row][to.col]--;
+                repaintSquare(to);
+            }
+        }, 0);
+        slideEnd = System.nanoTime() + SLIDE_DURATION * 1_000_000L;
+    }
+
+    /**
+     * Shows the explosion animation on the square for a moment, once the piece that set it off has landed.
+     */
+    void explode(Position p) {
+        animator.add(new Animator.Animation(squareBounds(p.row, p.col), EXPLOSION_DURATION) {
+            @Override
+            void paint(Graphics2D g, double progress) {
+                Rectangle bounds = getBounds();
+                g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, fadeOut(progress)));
+                g.drawImage(imageManager.getImage(explosionImage).getImage(), bounds.x, bounds.y, bounds.width, bounds.height, BoardView.this);
+            }
+        }, effectDelay());
+    }
+
+    /**
+     * Shows the piece on the square being switched: the effect's sprite grows and fades over it.
+     */
+    void teleport(Position p) {
+        animator.add(new Animator.Animation(squareBounds(p.row, p.col), TELEPORT_DURATION) {
+            @Override
+            void paint(Graphics2D g, double progress) {
+                Rectangle bounds = getBounds();
+                double scale = 0.5 + progress;
+                int width = (int) (bounds.width * scale);
+                int height = (int) (bounds.height * scale);
+                g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) (1 - progress)));
+                drawScaledImage(g, new Rectangle(bounds.x + (bounds.width - width) / 2,
+                        bounds.y + (bounds.height - height) / 2, width, height), EFFECT_PADDING_RATIO, morphSprite);
+            }
+        }, effectDelay());
+    }
+
+    /**
+     * Stops the animations, showing the board as it is.
+     */
+    void stopAnimations() {
+        animator.clear();
+        slideEnd = 0;
+    }
+
+    /**
+     * @return the time until the last piece lands, in milliseconds.
+     */
+    private long effectDelay() {
+        return Math.max(0, (slideEnd - System.nanoTime()) / 1_000_000L);
+    }
+
+    /**
+     * @return the opacity of an animation that fades out over its last quarter.
+     */
+    private static float fadeOut(double progress) {
+        return (float) Math.min(1, 4 * (1 - progress));
+    }
+
+    /**
+     * @return the square at the given point of the component, or null if there is none.
+     */
+    Position squareAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
+            return null;
+        }
+        return new Position(cellIndex(y, getHeight(), rows), cellIndex(x, getWidth(), cols));
+    }
+
+    /**
+     * @return the cell of a row or column of cells, each from index * length / cells to the start of the next.
+     */
+    private static int cellIndex(int coordinate, int length, int cells) {
+        int index = (int) ((long) coordinate * cells / length);
+        while (index + 1 < cells && coordinateOf(index + 1, length, cells) <= coordinate) {
+            index++;
+        }
+        while (index > 0 && coordinateOf(index, length, cells) > coordinate) {
+            index--;
+        }
+        return index;
+    }
+
+    private static int coordinateOf(int index, int length, int cells) {
+        return (int) ((long) index * length / cells);
+    }
+
+    /**
+     * The squares share the component the way a GridLayout shares it between its cells, so they fill it exactly.
+     */
+    private Rectangle squareBounds(int row, int col) {
+        int x = coordinateOf(col, getWidth(), cols);
+        int y = coordinateOf(row, getHeight(), rows);
+        return new Rectangle(x, y, coordinateOf(col + 1, getWidth(), cols) - x,
+                coordinateOf(row + 1, getHeight(), rows) - y);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
+        if (terrain == null || terrain.getWidth() != getWidth() || terrain.getHeight() != getHeight()) {
+            if (terrain != null) {
+                stopAnimations(); //They were placed on the squares at the old size.
+            }
+            terrain = drawTerrain();
+        }
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.drawImage(terrain, 0, 0, null);
+
+        int firstRow = cellIndex(Math.max(0, clip.y), getHeight(), rows);
+        int lastRow = cellIndex(Math.min(getHeight() - 1, clip.y + clip.height - 1), getHeight(), rows);
+        int firstCol = cellIndex(Math.max(0, clip.x), getWidth(), cols);
+        int lastCol = cellIndex(Math.min(getWidth() - 1, clip.x + clip.width - 1), getWidth(), cols);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                paintSquare(g, row, col, squareBounds(row, col));
+            }
+        }
+        animator.paint(g);
+    }
+
+    /**
+     * Draws what is on the square over its terrain.
+     */
+    private void paintSquare(Graphics g, int row, int col, Rectangle bounds) {
+        Space space = board.getSpace(row, col);
+        if (space != null) {
+            if (highlighted[row][col]) {
+                g.setColor(selectedColor);
+                g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+            } else if (space.getEffect() != null) {
+                String effectSprite;
+                switch (space.getEffect().getType()) {
+                    default:
+                    case Bomb:
+                        effectSprite = bombSprite;
+                        break;
+                    case SwitchPiece:
+                        effectSprite = morphSprite;
+                        break;
+                }
+                drawScaledImage(g, bounds, EFFECT_PADDING_RATIO, effectSprite);
+            }
+
+            Piece piece = space.getPiece();
+            if (piece != null && arriving[row][col] == 0) {
+                drawScaledImage(g, bounds, PIECE_PADDING_RATIO, pieceSprite(piece));
+            }
+        }
+    }
+
+    private static String pieceSprite(Piece piece) {
+        String color = piece.getColor().equals("black") ? "blue" : "red";
+        return piece.getType().name().toLowerCase() + "_" + color;
+    }
+
+    private BufferedImage drawTerrain() {
+        BufferedImage image = getGraphicsConfiguration() != null
+                ? getGraphicsConfiguration().createCompatibleImage(getWidth(), getHeight())
+                : new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(ColorGenerator.backgroundColor);
+        g.fillRect(0, 0, getWidth(), getHeight());
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                Rectangle bounds = squareBounds(row, col);
+                boolean light = (row + col) % 2 == 0;
+                String[] tiles;
+                if (board.getSpace(row, col) != null) {
+                    tiles = light ? lightGrassTiles : darkGrassTiles;
+                } else {
+                    tiles = light ? lightDirtTiles : darkDirtTiles;
+                }
+                String tile = tiles[random[row][col] % tiles.length];
+                g.drawImage(imageManager.getSprite(tile, bounds.width, bounds.height), bounds.x, bounds.y, null);
+            }
+        }
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Draws the image centered in the square, inside the padding, keeping its proportions.
+     */
+    private void drawScaledImage(Graphics g, Rectangle bounds, double paddingRatio, String name) {
+        ImageIcon image = imageManager.getImage(name);
+        double widthToHeightRatio = image.getIconWidth() / (image.getIconHeight() * 1.0); //float div with ints
+
+        int width;
+        int height;
+        int x;
+        int y;
+        double internalSize = 1 - (2 * paddingRatio);
+        if (widthToHeightRatio > 1) {//width is bigger
+            width = (int) (bounds.width * internalSize);
+            height = (int) (width / widthToHeightRatio);
+            x = (int) (bounds.width * paddingRatio);
+            y = (int) (bounds.height * paddingRatio + (bounds.height * internalSize - height) / 2.0);
+        } else if (widthToHeightRatio < 1) {
+            height = (int) (bounds.height * internalSize);
+            width = (int) (height * widthToHeightRatio);
+            x = (int) (bounds.width * paddingRatio + (bounds.width * internalSize - width) / 2.0);
+            y = (int) (bounds.height * paddingRatio);
+        } else {
+            width = (int) (bounds.width * internalSize);
+            height = (int) (bounds.height * internalSize);
+            x = (int) (bounds.width * paddingRatio);
+            y = (int) (bounds.height * paddingRatio);
+        }
+        //Already at its size, so drawing it is a plain copy.
+        g.drawImage(imageManager.getSprite(name, width, height), bounds.x + x, bounds.y + y, null);
+    }
+
+    /**
+     * The Animator repaints the explosions every frame, so a new frame of the animated image doesn't repaint the board.
+     */
+    @Override
+    public boolean imageUpdate(Image img, int infoflags, int x, int y, int w, int h) {
+        if (img != imageManager.getImage(explosionImage).getImage()) {
+            return super.imageUpdate(img, infoflags, x, y, w, h);
+        }
+        return (infoflags & (ALLBITS | ABORT)) == 0;
+    }
+}
@@ -2,29 +2,32 @@ public class BombEffect extends Effect {
 
     private EffectType effectType = EffectType.Bomb;
 
-    public void doEffect(Space s, Board b, Position p, BoardButton[][] buttons) {
-
-        if (s.getPiece().getType() != Piece.ChessPieceType.KING) {
+    /**
+     * Removes every piece except the kings from p and the spaces around it.
+     */
+    EffectResult apply(Board b, Position p, int outcome) {
+        EffectResult exploded = new EffectResult(effectType, p, outcome);
+
+        Space s = b.getSpace(p);
+        if (s.getPiece() != null && s.getPiece().getType() != Piece.ChessPieceType.KING) {
+            exploded.addRemoved(p, s.getPiece());
             s.setPiece(null);
-            AudioManager.getInstance().playBoom();
-
-            buttons[p.row][p.col].explode();
         }
 
         for (Position vector : Position.cardinalDirections) {
             Position newPos = p.add(vector);
-            Space adjacentSpace = b.getSpace(newPos);
+            Space adjacentSpace = b.positionIsWithinBounds(newPos) ? b.getSpace(newPos) : null;
             if (adjacentSpace != null) {
                 Piece adjacentPiece = adjacentSpace.getPiece();
 
                 if (adjacentPiece != null && adjacentPiece.getType() != Piece.ChessPieceType.KING) {
                     adjacentSpace.setPiece(null);
-
-                    buttons[newPos.row][newPos.col].explode();
+                    exploded.addRemoved(newPos, adjacentPiece);
                 }
             }
         }
 
+        return exploded;
     }
 
     public EffectType getType() {
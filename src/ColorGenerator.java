@@ -1,5 +1,4 @@
 import java.awt.*;
-import java.util.Random;
 
 public class ColorGenerator {
     private Color randomLightColor, randomDarkColor;
@@ -7,7 +6,13 @@ public class ColorGenerator {
     static Color backgroundColor = Color.CYAN;
 
     ColorGenerator() {
-        Random rand = new Random();
+        this(new GameRandom(GameRandom.newSeed()));
+    }
+
+    /**
+     * @param rand generator the colors are drawn from, so that they can be the same every time.
+     */
+    ColorGenerator(GameRandom rand) {
 
 //        float r = rand.nextFloat();
 
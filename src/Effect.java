@@ -6,7 +6,43 @@ public abstract class Effect implements Serializable {
         Bomb, SwitchPiece
     }
 
-    public abstract void doEffect(Space s, Board b, Position p, BoardButton[][] buttons);
+    static Effect create(EffectType type) {
+        switch (type) {
+            case Bomb:
+                return new BombEffect();
+            case SwitchPiece:
+                return new SwitchPieceEffect();
+            default:
+                throw new IllegalArgumentException("Unknown effect type: " + type);
+        }
+    }
+
+    /**
+     * Applies the rules of the effect to the board for the piece that landed on p. Only the board changes: the sound
+     * and animation are left to whoever is shown the result. Made after Board.makeMove, the changes are taken back by
+     * the matching unmakeMove.
+     *
+     * @param outcome which of the getOutcomeCount possible results happens (see drawOutcome).
+     * @return the pieces the effect removed or replaced.
+     */
+    abstract EffectResult apply(Board b, Position p, int outcome);
+
+    /**
+     * @return the number of different results the effect can have for the piece that landed on p, each as likely as
+     * the others. 1 unless the effect is random.
+     */
+    int getOutcomeCount(Board b, Position p) {
+        return 1;
+    }
+
+    /**
+     * Picks the outcome of the effect for the piece that landed on p. The generator is only drawn from if there is
+     * more than one outcome, so a game replayed with the same generator draws the same numbers.
+     */
+    int drawOutcome(Board b, Position p, GameRandom random) {
+        int outcomes = getOutcomeCount(b, p);
+        return outcomes > 1 ? random.nextInt(outcomes) : 0;
+    }
 
     public abstract EffectType getType();
 }
@@ -0,0 +1,43 @@
+import java.util.ArrayList;
+
+/**
+ * What an effect did to the board when a piece landed on it (see Effect.apply): the pieces it removed and the ones it
+ * replaced. Effects only change the board and return this; the window and the sounds react to it afterwards (see
+ * BoardPanel.addEffectListener), so the rules can be played without them.
+ */
+class EffectResult {
+    final Effect.EffectType type;
+    final Position position; //Where the piece that set the effect off landed.
+    final int outcome; //Which of the effect's possible results happened.
+
+    //The squares whose piece was removed, and the pieces removed from them, in the same order.
+    final ArrayList<Position> removed = new ArrayList<>();
+    final ArrayList<Piece> removedPieces = new ArrayList<>();
+
+    //The squares whose piece was replaced by another, and the pieces that were there before, in the same order.
+    final ArrayList<Position> replaced = new ArrayList<>();
+    final ArrayList<Piece> replacedPieces = new ArrayList<>();
+
+    EffectResult(Effect.EffectType type, Position position, int outcome) {
+        this.type = type;
+        this.position = position;
+        this.outcome = outcome;
+    }
+
+    void addRemoved(Position p, Piece piece) {
+        removed.add(p);
+        removedPieces.add(piece);
+    }
+
+    void addReplaced(Position p, Piece piece) {
+        replaced.add(p);
+        replacedPieces.add(piece);
+    }
+
+    /**
+     * @return true if the piece that landed on the effect was itself removed or replaced, which kings never are.
+     */
+    boolean changedLandingPiece() {
+        return removed.contains(position) || replaced.contains(position);
+    }
+}
@@ -0,0 +1,657 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computer player. Picks a move for the side to move in a GameState using an iterative deepening alpha-beta (negamax)
+ * search, followed by a quiescence search of captures so that positions are only evaluated once they are quiet.
+ * <p>
+ * Moves are ordered with the best move of the previous iteration first, then captures by MVV/LVA (most valuable
+ * victim, least valuable attacker, using Piece.getValue) and promotions, then everything else.
+ * <p>
+ * The search works on its own copy of the board using Board.makeMove and unmakeMove, so it works on any board the
+ * rules support, including the random 16x16 boards. A move that lands on an effect tile gets the effect, as in the
+ * game (see Effect.apply). An effect with a single outcome, such as a bomb, is simply applied; one with several, such
+ * as a switch piece tile, makes the move a chance node, scored as the average of its outcomes (see chanceNode).
+ * <p>
+ * Results are kept in a TranspositionTable, which several Engines can share to search in parallel (see
+ * ParallelEngine). An Engine itself is not thread-safe. Use one instance per thread.
+ */
+class Engine {
+
+    static final int MATE = 1000000;
+    static final int MAX_PLY = 64;
+    private static final int INFINITY = MATE + 1;
+
+    private static final String[] COLORS = {"white", "black"}; //Indexed by BitBoard color.
+
+    private static final Piece.ChessPieceType[] TYPES = Piece.ChessPieceType.values();
+    static final int[] PIECE_VALUES = new int[TYPES.length]; //In centipawns, indexed by type ordinal.
+
+    static {
+        for (Piece.ChessPieceType type : TYPES) {
+            PIECE_VALUES[type.ordinal()] = Piece.create(type, "white").getValue() * 100;
+        }
+    }
+
+    //Most an outcome of an effect is expected to score away from its static evaluation: a rook won or lost in reply.
+    private static final int OUTCOME_MARGIN = PIECE_VALUES[Piece.ChessPieceType.ROOK.ordinal()];
+
+    private static final int PV_MOVE_SCORE = Integer.MAX_VALUE;
+    private static final int CAPTURE_SCORE = 1 << 20;
+    private static final int PROMOTION_SCORE = 1 << 19;
+
+    private static final int CHECK_INTERVAL = 1023; //Limits are checked every CHECK_INTERVAL + 1 nodes.
+
+    private static final long CHANCE_KEY = 0x6A09E667F3BCC909L; //Keeps the table entries of chance nodes apart.
+    private static final int OUTSIDE_BOUNDS = -INFINITY - 1; //Result of a chance node search that has to be redone.
+
+    private static final int DEFAULT_TABLE_MEGABYTES = 16;
+
+    private final TranspositionTable table;
+    private final AtomicBoolean stopSignal; //Set by another thread to stop the search.
+    private final AtomicLong sharedNodes; //Nodes searched by all the Engines sharing the search, or null.
+
+    private Board board;
+    private int rootColor;
+    private int[] centerBonus = new int[BitBoard.SQUARES];
+
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    private final int[][] moveScores = new int[MAX_PLY + 1][];
+    private final int[][] outcomeEstimates = new int[MAX_PLY + 1][]; //Static evaluations of a chance node's outcomes.
+
+    private long nodes;
+    private long maxNodes;
+    private int maxDepth;
+    private long start;
+    private long deadline;
+    private boolean limited; //Off during the first iteration, which always runs to completion.
+    private boolean stopped;
+
+    Engine() {
+        this(new TranspositionTable(DEFAULT_TABLE_MEGABYTES), new AtomicBoolean(), null);
+    }
+
+    /**
+     * Creates an Engine that shares its table, and the stop signal and node count of its search, with other Engines.
+     *
+     * @param sharedNodes the node count the node limit applies to, or null to only count this Engine's nodes.
+     */
+    Engine(TranspositionTable table, AtomicBoolean stopSignal, AtomicLong sharedNodes) {
+        this.table = table;
+        this.stopSignal = stopSignal;
+        this.sharedNodes = sharedNodes;
+        for (int i = 0; i <= MAX_PLY; i++) {
+            moveLists[i] = new MoveList();
+            moveScores[i] = new int[64];
+            outcomeEstimates[i] = new int[0];
+        }
+    }
+
+    /**
+     * Searches the position for the best move of the side to move. The GameState and its board are not changed.
+     */
+    SearchResult search(GameState state, SearchLimits limits) {
+        table.newSearch();
+        prepare(state, limits);
+        return iterate(1);
+    }
+
+    /**
+     * Forgets what earlier searches stored in the table, so that the next searches don't depend on them.
+     */
+    void clearTable() {
+        table.clear();
+    }
+
+    /**
+     * Sets up a search of the position on a copy of its board. Call this from the thread that owns the GameState; the
+     * search itself can then run on any thread.
+     */
+    void prepare(GameState state, SearchLimits limits) {
+        start = System.currentTimeMillis();
+        board = new Board(state.getBoard());
+        rootColor = BitBoard.colorIndex(state.getTurnColor());
+        initCenterBonus();
+
+        nodes = 0;
+        maxNodes = limits.maxNodes;
+        maxDepth = limits.maxDepth == SearchLimits.UNLIMITED ? MAX_PLY : Math.min(limits.maxDepth, MAX_PLY);
+        deadline = limits.maxTimeMillis == SearchLimits.UNLIMITED ? Long.MAX_VALUE : start + limits.maxTimeMillis;
+        limited = false;
+        stopped = false;
+    }
+
+    /**
+     * Iterative deepening search of the prepared position, from startDepth up to the depth limit.
+     * The first iteration always runs to completion.
+     */
+    SearchResult iterate(int startDepth) {
+        return iterate(startDepth, true);
+    }
+
+    /**
+     * Same as iterate(int), but the first iteration only runs to completion if completeFirst is true. Helper threads
+     * pass false, so that they stop as soon as the search they help does.
+     */
+    SearchResult iterate(int startDepth, boolean completeFirst) {
+        MoveList rootMoves = rootMoves();
+
+        int bestMove = Move.NONE;
+        int bestScore = 0;
+        int completedDepth = 0;
+
+        if (rootMoves.isEmpty()) {
+            bestScore = board.kingInCheck(COLORS[rootColor]) ? -MATE : 0;
+        } else {
+            bestMove = rootMoves.get(0);
+        }
+
+        for (int depth = startDepth; depth <= maxDepth && !rootMoves.isEmpty(); depth++) {
+            limited = depth > startDepth || !completeFirst;
+            int iterationBest = Move.NONE;
+            int alpha = -INFINITY;
+            int searchedMoves = 0;
+
+            orderRootMoves(rootMoves, bestMove);
+            for (int i = 0; i < rootMoves.size(); i++) {
+                int move = rootMoves.get(i);
+                int score = searchRootMove(move, depth, alpha, INFINITY);
+
+                if (stopped) {
+                    break;
+                }
+                searchedMoves++;
+                if (score > alpha) {
+                    alpha = score;
+                    iterationBest = move;
+                }
+            }
+
+            if (stopped) {
+                //The previous best move is searched first, so once it is done the partial iteration's best can be used.
+                if (searchedMoves > 0) {
+                    bestMove = iterationBest;
+                    bestScore = alpha;
+                }
+                break;
+            }
+
+            bestMove = iterationBest;
+            bestScore = alpha;
+            completedDepth = depth;
+
+            if (Math.abs(bestScore) >= MATE - MAX_PLY) {
+                break; //A forced mate was found; searching deeper won't change the move.
+            }
+        }
+
+        return new SearchResult(bestMove, bestScore, completedDepth, nodes, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * @return the legal moves of the side to move in the prepared position.
+     */
+    MoveList rootMoves() {
+        MoveList rootMoves = new MoveList();
+        generateMoves(rootColor, rootMoves, false);
+        removeIllegalMoves(rootMoves, rootColor);
+        return rootMoves;
+    }
+
+    /**
+     * Orders root moves with pvMove first, then by the same rules as the rest of the search.
+     */
+    void orderRootMoves(MoveList rootMoves, int pvMove) {
+        orderMoves(rootMoves, 0, pvMove);
+    }
+
+    /**
+     * Searches one legal root move to the given depth.
+     *
+     * @return the score of the move from the point of view of the side to move. Only meaningful if the search wasn't
+     * stopped, and only exact if it is between alpha and beta.
+     */
+    int searchRootMove(int move, int depth, int alpha, int beta) {
+        board.makeMove(move);
+        int score = searchMove(move, depth - 1, alpha, beta, 0, rootColor);
+        board.unmakeMove();
+        return score;
+    }
+
+    /**
+     * Turns limit checks on or off. They are off while a search must complete, such as the first iteration.
+     */
+    void setLimited(boolean limited) {
+        this.limited = limited;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    long getNodes() {
+        return nodes;
+    }
+
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    private int search(int depth, int alpha, int beta, int ply, int color) {
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiescence(alpha, beta, ply, color);
+        }
+        if (checkLimits()) {
+            return 0;
+        }
+        nodes++;
+
+        long key = board.getZobristKey() ^ (color == BitBoard.BLACK ? Zobrist.BLACK_TO_MOVE : 0);
+        long entry = table.probe(key);
+        int tableMove = Move.NONE;
+        if (entry != TranspositionTable.MISS) {
+            //A colliding key can give a move this position doesn't have; it is then only never matched in orderMoves.
+            tableMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        generateMoves(color, moves, false);
+        orderMoves(moves, ply, tableMove);
+
+        String colorName = COLORS[color];
+        int originalAlpha = alpha;
+        int bestMove = Move.NONE;
+        int legalMoves = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(move);
+            if (board.kingInCheck(colorName)) {
+                board.unmakeMove();
+                continue;
+            }
+            legalMoves++;
+            int score = searchMove(move, depth - 1, alpha, beta, ply, color);
+            board.unmakeMove();
+
+            if (stopped) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+                if (alpha >= beta) {
+                    table.store(key, move, scoreToTable(alpha, ply), depth, TranspositionTable.LOWER);
+                    return alpha;
+                }
+            }
+        }
+
+        if (legalMoves == 0) {
+            //Checkmate (sooner is worse) or stalemate.
+            return board.kingInCheck(colorName) ? -MATE + ply : 0;
+        }
+
+        int bound = alpha > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, scoreToTable(alpha, ply), depth, bound);
+        return alpha;
+    }
+
+    /**
+     * Searches the position after a legal move that color just made at ply, once the effect the move landed on (if
+     * any) is applied. The board is left with the move made, for the caller to unmake.
+     *
+     * @return the score of the move from color's point of view.
+     */
+    private int searchMove(int move, int depth, int alpha, int beta, int ply, int color) {
+        if (Move.is(move, Move.EFFECT)) {
+            int row = BitBoard.row(Move.to(move));
+            int col = BitBoard.col(Move.to(move));
+            Effect effect = board.getSpace(row, col).getEffect(); //A promoted pawn's new space has none.
+            if (effect != null) {
+                Position to = new Position(row, col);
+                int outcomes = effect.getOutcomeCount(board, to);
+                if (outcomes > 1) {
+                    return chanceNode(move, effect, to, outcomes, depth, alpha, beta, ply, color);
+                }
+                effect.apply(board, to, 0);
+            }
+        }
+        return -search(depth, -beta, -alpha, ply + 1, 1 - color);
+    }
+
+    /**
+     * Scores a move that landed on an effect with several outcomes, each as likely as the others, as the average of
+     * the scores of the positions they lead to (an expectimax chance node).
+     * <p>
+     * The outcomes are searched with Star1 windows. Once some outcomes are known, the average can only fall inside
+     * alpha..beta if the others score within a range; each outcome is searched with that range only, and the node is
+     * cut off as soon as the average is certain to be outside alpha..beta. The range is narrow only if the scores of
+     * the outcomes are bounded, so each outcome is assumed to score within OUTCOME_MARGIN of its static evaluation. If
+     * one turns out not to, the node is searched again with MATE as the only bound. The average (or the bound found)
+     * is stored in the table under the key of the move's position with CHANCE_KEY, so the outcomes are searched once
+     * for a node that comes up again in a later iteration or through another move order; the positions of the
+     * outcomes are stored as usual, so their searches are reused too.
+     */
+    private int chanceNode(int move, Effect effect, Position to, int outcomes, int depth, int alpha, int beta,
+                           int ply, int color) {
+        long key = board.getZobristKey() ^ (color == BitBoard.BLACK ? Zobrist.BLACK_TO_MOVE : 0) ^ CHANCE_KEY;
+        if (depth > 0) {
+            long entry = table.probe(key);
+            if (entry != TranspositionTable.MISS && TranspositionTable.depth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        if (outcomeEstimates[ply].length < outcomes) {
+            outcomeEstimates[ply] = new int[outcomes];
+        }
+        int[] estimates = outcomeEstimates[ply];
+        for (int outcome = 0; outcome < outcomes; outcome++) {
+            if (outcome > 0) {
+                board.unmakeMove();
+                board.makeMove(move);
+            }
+            effect.apply(board, to, outcome);
+            estimates[outcome] = evaluate(color);
+        }
+        board.unmakeMove();
+        board.makeMove(move);
+
+        int score = searchOutcomes(move, effect, to, outcomes, depth, alpha, beta, ply, color, key, OUTCOME_MARGIN);
+        if (score == OUTSIDE_BOUNDS) {
+            board.unmakeMove();
+            board.makeMove(move);
+            score = searchOutcomes(move, effect, to, outcomes, depth, alpha, beta, ply, color, key, MATE);
+        }
+        return score;
+    }
+
+    /**
+     * Searches the outcomes of a chance node (see chanceNode), assuming each of them scores within margin of its
+     * estimate in outcomeEstimates. The board has the move made, without the effect.
+     *
+     * @return the score of the node, or OUTSIDE_BOUNDS if an outcome doesn't score within those bounds. The board may
+     * then have the effect applied.
+     */
+    private int searchOutcomes(int move, Effect effect, Position to, int outcomes, int depth, int alpha, int beta,
+                               int ply, int color, long key, int margin) {
+        int[] estimates = outcomeEstimates[ply];
+        int sum = 0;
+        for (int outcome = 0; outcome < outcomes; outcome++) {
+            if (outcome > 0) {
+                //Takes the previous outcome back with the move, then makes the move again.
+                board.unmakeMove();
+                board.makeMove(move);
+            }
+            effect.apply(board, to, outcome);
+
+            //The most and the least the outcomes still to be searched can add up to.
+            int restHighest = 0;
+            int restLowest = 0;
+            for (int next = outcome + 1; next < outcomes; next++) {
+                restHighest += Math.min(MATE, estimates[next] + margin);
+                restLowest += Math.max(-MATE, estimates[next] - margin);
+            }
+            int lowest = Math.max(-MATE, estimates[outcome] - margin);
+            int highest = Math.min(MATE, estimates[outcome] + margin);
+            int cutLow = outcomes * alpha - sum - restHighest;
+            int cutHigh = outcomes * beta - sum - restLowest;
+            int low = Math.max(lowest, cutLow);
+            int high = Math.min(highest, cutHigh);
+            int score = -search(depth, -high, -low, ply + 1, 1 - color);
+            if (stopped) {
+                return 0;
+            }
+
+            if (score <= low) {
+                if (cutLow >= lowest) {
+                    //Even if the other outcomes scored their highest, the average would be at most alpha.
+                    int bound = (sum + score + restHighest) / outcomes;
+                    if (depth > 0) {
+                        table.store(key, move, scoreToTable(bound, ply), depth, TranspositionTable.UPPER);
+                    }
+                    return bound;
+                }
+                if (lowest > -MATE) {
+                    return OUTSIDE_BOUNDS;
+                }
+            } else if (score >= high) {
+                if (cutHigh <= highest) {
+                    int bound = (sum + score + restLowest) / outcomes;
+                    if (depth > 0) {
+                        table.store(key, move, scoreToTable(bound, ply), depth, TranspositionTable.LOWER);
+                    }
+                    return bound;
+                }
+                if (highest < MATE) {
+                    return OUTSIDE_BOUNDS;
+                }
+            }
+            sum += score;
+        }
+
+        int average = sum / outcomes;
+        if (depth > 0) {
+            table.store(key, move, scoreToTable(average, ply), depth, TranspositionTable.EXACT);
+        }
+        return average;
+    }
+
+    /**
+     * Mate scores count plies from the root. The table stores them counted from the position instead, so that they
+     * stay correct when the position is reached at another ply.
+     */
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        } else if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        } else if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Searches only captures and promotions until the position is quiet, so that the evaluation isn't taken in the
+     * middle of an exchange.
+     */
+    private int quiescence(int alpha, int beta, int ply, int color) {
+        if (checkLimits()) {
+            return 0;
+        }
+        nodes++;
+
+        int standPat = evaluate(color);
+        if (standPat >= beta || ply >= MAX_PLY) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        generateMoves(color, moves, true);
+        orderMoves(moves, ply, Move.NONE);
+
+        String colorName = COLORS[color];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(move);
+            if (board.kingInCheck(colorName)) {
+                board.unmakeMove();
+                continue;
+            }
+            int score = searchMove(move, 0, alpha, beta, ply, color); //Depth 0 goes on with the quiescence search.
+            board.unmakeMove();
+
+            if (stopped) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * @return true if the search has to stop because it ran out of nodes or time.
+     */
+    private boolean checkLimits() {
+        if (!stopped && (nodes & CHECK_INTERVAL) == 0 && nodes > 0) {
+            long totalNodes = sharedNodes != null ? sharedNodes.addAndGet(CHECK_INTERVAL + 1) : nodes;
+            if (limited) {
+                stopped = stopSignal.get()
+                        || (maxNodes != SearchLimits.UNLIMITED && totalNodes >= maxNodes)
+                        || System.currentTimeMillis() >= deadline;
+            }
+        }
+        return stopped;
+    }
+
+    /**
+     * Appends the moves of every piece of the given color. Moves may leave the king in check; the search skips those.
+     */
+    private void generateMoves(int color, MoveList moves, boolean capturesOnly) {
+        int start = moves.size();
+        board.generateMoves(color, moves);
+
+        if (capturesOnly) {
+            int end = start;
+            for (int i = start; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if (Move.is(move, Move.CAPTURE | Move.PROMOTION)) {
+                    moves.set(end++, move);
+                }
+            }
+            moves.truncate(end);
+        }
+    }
+
+    private void removeIllegalMoves(MoveList moves, int color) {
+        int end = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(move);
+            boolean legal = !board.kingInCheck(COLORS[color]);
+            board.unmakeMove();
+            if (legal) {
+                moves.set(end++, move);
+            }
+        }
+        moves.truncate(end);
+    }
+
+    /**
+     * Sorts the moves so that the most promising ones are searched first, which makes alpha-beta cut off sooner.
+     */
+    private void orderMoves(MoveList moves, int ply, int pvMove) {
+        int size = moves.size();
+        if (moveScores[ply].length < size) {
+            moveScores[ply] = new int[size * 2];
+        }
+        int[] scores = moveScores[ply];
+
+        for (int i = 0; i < size; i++) {
+            int move = moves.get(i);
+            int score = 0;
+            if (move == pvMove) {
+                score = PV_MOVE_SCORE;
+            } else {
+                if (Move.is(move, Move.CAPTURE)) {
+                    score += CAPTURE_SCORE + 16 * valueAt(Move.to(move)) - valueAt(Move.from(move));
+                }
+                if (Move.is(move, Move.PROMOTION)) {
+                    score += PROMOTION_SCORE;
+                }
+            }
+            scores[i] = score;
+        }
+
+        //Insertion sort; move lists are short.
+        for (int i = 1; i < size; i++) {
+            int move = moves.get(i);
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                moves.set(j + 1, moves.get(j));
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves.set(j + 1, move);
+            scores[j + 1] = score;
+        }
+    }
+
+    private int valueAt(int square) {
+        Piece piece = board.getSpace(BitBoard.row(square), BitBoard.col(square)).getPiece();
+        return piece != null ? PIECE_VALUES[piece.getType().ordinal()] : 0;
+    }
+
+    /**
+     * Static evaluation, from the point of view of the given color: the material balance, plus a small bonus for
+     * pieces (other than pawns and kings) that are close to the center of the board.
+     */
+    private int evaluate(int color) {
+        BitBoard core = board.getBitBoard();
+        int score = 0;
+        for (Piece.ChessPieceType type : TYPES) {
+            long[] typeMask = core.getType(type);
+            boolean centralize = type != Piece.ChessPieceType.PAWN && type != Piece.ChessPieceType.KING;
+            for (int side = BitBoard.WHITE; side <= BitBoard.BLACK; side++) {
+                long[] colorMask = core.getColor(side);
+                int sideScore = 0;
+                for (int word = 0; word < BitBoard.WORDS; word++) {
+                    long bits = typeMask[word] & colorMask[word];
+                    sideScore += Long.bitCount(bits) * PIECE_VALUES[type.ordinal()];
+                    while (centralize && bits != 0) {
+                        sideScore += centerBonus[(word << 6) | Long.numberOfTrailingZeros(bits)];
+                        bits &= bits - 1;
+                    }
+                }
+                score += side == color ? sideScore : -sideScore;
+            }
+        }
+        return score;
+    }
+
+    private void initCenterBonus() {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                //Distance from the center in half squares, so that even sized boards have a symmetric center.
+                int distance = Math.abs(2 * row - (rows - 1)) + Math.abs(2 * col - (cols - 1));
+                centerBonus[BitBoard.square(row, col)] = Math.max(0, 20 - 2 * distance);
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Reads and writes saved games in a compact binary format: the first state of the game (the squares with their
+ * effects and pieces, the seed and the generator), then the moves of its GameRecord, then the generator the game goes
+ * on with. A save grows by three bytes a move, and is written and read as a stream.
+ * <p>
+ * Layout, in DataOutput order:
+ * <pre>
+ * int MAGIC, short VERSION
+ * byte rows, byte cols
+ * rows * cols squares: byte code (see squareCode), then short move count if there is a piece
+ * byte turn (0 white, 1 black), short fifty move draw counter, long seed, GameRandom
+ * byte last move row, byte last move col (-1 if there is none)
+ * short taken pieces, byte piece code for each
+ * int moves, short move (see Move, without flags) and byte outcome + 1 for each
+ * GameRandom after the last move
+ * </pre>
+ * Reading a game replays its moves, so the GameRecord can undo them.
+ * Files that don't start with MAGIC and VERSION, such as saves made with Java serialization, are not read.
+ */
+class GameFile {
+
+    private static final int MAGIC = 0x52434847; //"RCHG"
+    private static final int VERSION = 1;
+
+    //Bits of a square code.
+    private static final int EXISTS = 1; //The square is part of the board.
+    private static final int EFFECT_SHIFT = 1; //2 bits: effect type ordinal + 1, 0 for none.
+    private static final int PIECE_SHIFT = 3; //3 bits: piece type ordinal + 1, 0 for none.
+    private static final int BLACK = 1 << 6;
+
+    private GameFile() {
+    }
+
+    static void write(String fileName, GameRecord record) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName)))) {
+            write(out, record);
+        }
+    }
+
+    static void write(DataOutput out, GameRecord record) throws IOException {
+        GameState state = record.getInitialState();
+        Board board = state.getBoard();
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeByte(board.getRows());
+        out.writeByte(board.getCols());
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int col = 0; col < board.getCols(); col++) {
+                Space space = board.getSpace(row, col);
+                out.writeByte(squareCode(space));
+                if (space != null && space.getPiece() != null) {
+                    out.writeShort(Math.min(space.getPiece().getMoveCount(), Short.MAX_VALUE));
+                }
+            }
+        }
+
+        out.writeByte(state.getTurnColor().equals("black") ? 1 : 0);
+        out.writeShort(state.getFiftyMoveDrawCounter());
+        out.writeLong(state.getSeed());
+        state.getRandom().write(out);
+
+        Position lastMove = state.getLastMove();
+        out.writeByte(lastMove != null ? lastMove.row : -1);
+        out.writeByte(lastMove != null ? lastMove.col : -1);
+
+        ArrayList<Piece> takenPieces = new ArrayList<>();
+        for (Map.Entry<String, ArrayList<Piece>> entry : state.getTakenPieces().entrySet()) {
+            takenPieces.addAll(entry.getValue());
+        }
+        out.writeShort(takenPieces.size());
+        for (Piece piece : takenPieces) {
+            out.writeByte(pieceCode(piece));
+        }
+
+        out.writeInt(record.size());
+        for (int i = 0; i < record.size(); i++) {
+            out.writeShort(record.getMove(i));
+            out.writeByte(record.getOutcome(i) + 1);
+        }
+
+        //The game goes on with the same numbers.
+        record.getCurrentState().getRandom().write(out);
+    }
+
+    /**
+     * @return the game saved in the file, or null if there is none or it isn't in this format.
+     */
+    static GameRecord read(String fileName) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+            return read(in);
+        } catch (IOException | RuntimeException e) { //RuntimeException: moves that don't fit the board.
+            return null;
+        }
+    }
+
+    /**
+     * @throws IOException if the data is not a game in this format.
+     */
+    static GameRecord read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a saved game.");
+        }
+        int version = in.readUnsignedShort();
+        if (version != VERSION) {
+            throw new IOException("Unknown save version " + version + ".");
+        }
+
+        int rows = in.readUnsignedByte();
+        int cols = in.readUnsignedByte();
+        Board board = new Board(rows, cols, true);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int code = in.readUnsignedByte();
+                if ((code & EXISTS) == 0) {
+                    continue;
+                }
+                Space space = new Space();
+                int effect = (code >>> EFFECT_SHIFT) & 3;
+                if (effect != 0) {
+                    space.setEffect(Effect.create(Effect.EffectType.values()[effect - 1]));
+                }
+                if (((code >>> PIECE_SHIFT) & 7) != 0) {
+                    Piece piece = readPiece(code);
+                    piece.setMoveCount(in.readUnsignedShort());
+                    space.setPiece(piece);
+                }
+                board.setSpace(space, row, col);
+            }
+        }
+
+        String turn = in.readUnsignedByte() == 1 ? "black" : "white";
+        int fiftyMoveDrawCounter = in.readUnsignedShort();
+        long seed = in.readLong();
+        GameState state = new GameState(turn, board, null, seed);
+        state.setFiftyMoveDrawCounter(fiftyMoveDrawCounter);
+        state.setRandom(GameRandom.read(in));
+
+        int lastMoveRow = in.readByte();
+        int lastMoveCol = in.readByte();
+        if (lastMoveRow >= 0) {
+            state.setLastMove(new Position(lastMoveRow, lastMoveCol));
+        }
+
+        int takenPieces = in.readUnsignedShort();
+        for (int i = 0; i < takenPieces; i++) {
+            state.addTakenPiece(readPiece(in.readUnsignedByte()));
+        }
+
+        GameRecord record = new GameRecord(state);
+        int moves = in.readInt();
+        for (int i = 0; i < moves; i++) {
+            int move = in.readUnsignedShort();
+            record.play(move, in.readUnsignedByte() - 1);
+        }
+        record.getCurrentState().setRandom(GameRandom.read(in));
+        return record;
+    }
+
+    private static int squareCode(Space space) {
+        if (space == null) {
+            return 0;
+        }
+        int code = EXISTS;
+        if (space.getEffect() != null) {
+            code |= (space.getEffect().getType().ordinal() + 1) << EFFECT_SHIFT;
+        }
+        if (space.getPiece() != null) {
+            code |= pieceCode(space.getPiece());
+        }
+        return code;
+    }
+
+    private static int pieceCode(Piece piece) {
+        return ((piece.getType().ordinal() + 1) << PIECE_SHIFT) | (piece.getColor().equals("black") ? BLACK : 0);
+    }
+
+    private static Piece readPiece(int code) {
+        int type = (code >>> PIECE_SHIFT) & 7;
+        if (type == 0 || type > Piece.ChessPieceType.values().length) {
+            throw new IllegalArgumentException("Not a piece: " + code);
+        }
+        return Piece.create(Piece.ChessPieceType.values()[type - 1], (code & BLACK) != 0 ? "black" : "white");
+    }
+}
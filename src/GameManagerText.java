@@ -1,7 +1,4 @@
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.*;
 
 /**
@@ -12,33 +9,44 @@ class GameManagerText {
     private static String black = "black";
     private static String white = "white";
 
-    private HashMap<String, String> preferences;
+    private GameRecord record; //The moves played so far, for undo and the threefold repetition check.
 
-    private final String USE_ASCII = "use_ascii";
+    private final boolean computerPlayer; //If true, the computer plays black.
+    private ParallelEngine engine;
+    private static final long COMPUTER_MOVE_TIME = 1500; //Milliseconds the computer thinks about each move.
 
-    private ArrayList<GameState> gameStates = new ArrayList<>();
+    GameManagerText() {
+        this(false);
+    }
+
+    /**
+     * @param computerPlayer if true, black is played by the computer.
+     */
+    GameManagerText(boolean computerPlayer) {
+        this.computerPlayer = computerPlayer;
+        if (computerPlayer) {
+            engine = new ParallelEngine(Runtime.getRuntime().availableProcessors(), ParallelEngine.Mode.LAZY_SMP);
+        }
+    }
 
     /**
      * Runs the game loop
      */
     void run() {
 
-        //Reads preferences file.
+        //Reads the settings shared with the window.
         //If ASCII chess character behavior is not defined, updates it to reflect
-        preferences = readPreferences();
+        GameSettings settings = GameSettings.getInstance();
         boolean useAsciiCharacters;
-        if (preferences.containsKey(USE_ASCII)) {
-            useAsciiCharacters = Boolean.valueOf(preferences.get(USE_ASCII));
+        if (settings.get(GameSettings.USE_ASCII) instanceof Boolean) {
+            useAsciiCharacters = (boolean) settings.get(GameSettings.USE_ASCII);
         } else {
             useAsciiCharacters = asciiCompatCheck();
-            preferences.put(USE_ASCII, Boolean.toString(useAsciiCharacters));
-            writePreferences(preferences);
+            settings.put(GameSettings.USE_ASCII, useAsciiCharacters);
         }
 
         //Initialize basic classes
         Board board = new Board();
-        GameState currentState = new GameState(white, board, null);
-        gameStates.add(new GameState(currentState));
         TextActuator actuator = new TextActuator(10, useAsciiCharacters);
 
         //If you add a file named test to the root folder, the game launches in test mode.
@@ -51,8 +59,11 @@ class GameManagerText {
             board.getSpace(new Position(Position.parsePosition("f6"))).setPiece(new Queen(white));
         } else {
 //      Initializes board with standard piece layout.
-            initBoardStandardChess(board);
+            PieceLayout.standardChess(board);
         }
+        record = new GameRecord(new GameState(white, board, null));
+        GameState currentState = record.getCurrentState();
+        board = currentState.getBoard();
         Scanner kb = new Scanner(System.in);
 
 //        currentState.setFiftyMoveDrawCounter(49);
@@ -64,11 +75,11 @@ class GameManagerText {
 
             //Checks if the current player is in check and alerts them if they are at the start of their turn.
             boolean isInCheck = board.kingInCheck(currentState.getTurnColor());
-            boolean hasAvailableMove = currentState.hasAvailableMove(board);
+            boolean hasAvailableMove = record.hasAvailableMove();
 
             //Game over checks and notifies if king is in check
 //            actuator.addLine(currentState.getFiftyMoveDrawCounter());
-            if (isThreeFoldDraw()) {
+            if (record.isThreeFoldDraw()) {
                 actuator.addLine("It's a threefold repetition; the same position occurred three times, with the same player to move.");
                 actuator.addLine("The game has ended in a draw.");
                 gameIsRunning = false;
@@ -95,9 +106,15 @@ class GameManagerText {
 
             if (gameIsRunning) {
                 board = currentState.getBoard();
-                actuator.addLine("It is " + currentState.getTurnColor() + "'s turn. Enter the move you want to make(Ex. B1,A3): ");
-                actuator.printBoard(board);
-                currentState = getUserInput(kb, currentState, actuator);
+                if (computerPlayer && currentState.getTurnColor().equals(black)) {
+                    actuator.addLine("It is " + currentState.getTurnColor() + "'s turn. The computer is thinking...");
+                    actuator.printBoard(board);
+                    getComputerMove(currentState, actuator);
+                } else {
+                    actuator.addLine("It is " + currentState.getTurnColor() + "'s turn. Enter the move you want to make(Ex. B1,A3), or undo: ");
+                    actuator.printBoard(board);
+                    getUserInput(kb, currentState, actuator);
+                }
             } else {
                 actuator.printBoard(board);
             }
@@ -107,33 +124,46 @@ class GameManagerText {
         kb.close();
     }
 
-    private void initBoardStandardChess(Board board) {
-        Space[][] spaces = board.getBoard();
-        for (int i = 0; i < board.getRows(); i++) {
-            spaces[1][i] = new Space(new Pawn(black));
-            spaces[spaces.length - 2][i] = new Space(new Pawn(white));
+    private void getUserInput(Scanner kb, GameState currentState, TextActuator actuator) {
+        String s = kb.nextLine();
+        actuator.addLine(s);
+        if (s.trim().equalsIgnoreCase("undo")) {
+            undo(actuator);
+        } else {
+            playMove(s, currentState, actuator);
         }
+    }
 
-        initStandardRow(spaces[0], black);
-        initStandardRow(spaces[spaces.length - 1], white);
+    /**
+     * Takes back the last move, and the computer's move before it, so that it is the player's turn again.
+     */
+    private void undo(TextActuator actuator) {
+        int moves = computerPlayer ? 2 : 1;
+        if (record.size() < moves) {
+            actuator.addLine("There is no move to undo.");
+            return;
+        }
+        for (int i = 0; i < moves; i++) {
+            record.undo();
+        }
+        actuator.addLine(moves == 1 ? "The last move was taken back." : "The last two moves were taken back.");
     }
 
-    private void initStandardRow(Space[] row, String color) {
-        row[0] = new Space(new Rook(color));
-        row[1] = new Space(new Knight(color));
-        row[2] = new Space(new Bishop(color));
-        row[3] = new Space(new Queen(color));
-        row[4] = new Space(new King(color));
-        row[5] = new Space(new Bishop(color));
-        row[6] = new Space(new Knight(color));
-        row[7] = new Space(new Rook(color));
+    /**
+     * Searches for the computer's move and plays it as if it had been typed in.
+     */
+    private void getComputerMove(GameState currentState, TextActuator actuator) {
+        SearchResult result = engine.search(currentState, SearchLimits.time(COMPUTER_MOVE_TIME));
+        String s = Move.toString(result.move);
+        actuator.addLine(s);
+        playMove(s, currentState, actuator);
     }
 
-    private GameState getUserInput(Scanner kb, GameState currentState, TextActuator actuator) {
+    /**
+     * Plays a move entered in the form A1,A2 on the current state, if it is legal.
+     */
+    private void playMove(String s, GameState currentState, TextActuator actuator) {
         Board board = currentState.getBoard();
-
-        String s = kb.nextLine();
-        actuator.addLine(s);
         String[] split = s.split(",");
 
         if (split.length != 2) {
@@ -155,82 +185,39 @@ class GameManagerText {
                 actuator.addLine("The selected piece is the wrong color. Please select a " +
                         currentState.getTurnColor() + " piece.");
             } else {
-                gameStates.add(new GameState(currentState));
-
-                //De-links references
-                currentState = new GameState(currentState);
-                board = currentState.getBoard();
-
-                //Add a check to make sure entered move works.
                 Piece currentPiece = board.getSpace(pBefore).getPiece();
-                Status status = currentPiece.move(board, pBefore, pAfter);
-
-                if (status.status.equals(Status.STATUS_BAD)) {
-                    actuator.addLine(status.message);
-                } else if (board.kingInCheck(currentState.getTurnColor())) {//Check for check; if player is in check, revert.
-                    actuator.addLine("You cannot move there! You cannot put your king in check.");
-
-                    //updates references to refer to the last legal state.
-                    currentState = new GameState(gameStates.get(gameStates.size() - 1));
-
-                    //Remove state to prevent duplicates; it is added again at the beginning of the loop
-                    gameStates.remove(gameStates.size() - 1);
+                Piece previousPiece = board.getSpace(pAfter).getPiece();
+                Piece.ChessPieceType type = currentPiece.getType();
+                String color = currentState.getTurnColor();
 
+                //Add a check to make sure entered move works.
+                if (!currentPiece.canMoveTo(board, pBefore, pAfter)) {
+                    actuator.addLine(Status.FailedMove().message);
                 } else {
-                    actuator.addLine(status.message);
-
-                    //If the selected piece has moved, update board, and change turns.
-                    if (board.getSpace(pBefore).getPiece() == null) {
-                        currentState.changeTurn();
-                        currentState.setLastMove(pAfter);
+                    record.play(Move.of(BitBoard.square(pBefore.row, pBefore.col),
+                            BitBoard.square(pAfter.row, pAfter.col), 0), GameState.NO_EFFECT);
 
-                        //If a piece was captured, adds that piece to the list of captured pieces in the state.
-                        Piece previousPiece = gameStates.get(gameStates.size() - 1).getBoard().getSpace(pAfter).getPiece();
+                    if (board.kingInCheck(color)) {//Check for check; if player is in check, revert.
+                        actuator.addLine("You cannot move there! You cannot put your king in check.");
+                        record.undo();
+                    } else {
+                        actuator.addLine(Status.SuccessfulMove(type, pBefore, pAfter).message);
 
+                        //The move has already reset the counter for a capture, or incremented it.
                         if (previousPiece != null) {
-                            currentState.addTakenPiece(previousPiece);
-                            currentState.resetFiftyMoveDrawCounter();
                             actuator.addLine("resetting because a piece was captured ");
-                        } else if (currentPiece.getType() == Piece.ChessPieceType.PAWN) {
+                        } else if (type == Piece.ChessPieceType.PAWN) {
                             currentState.resetFiftyMoveDrawCounter();
                             actuator.addLine("resetting because a pawn moved");
                         } else {
-                            currentState.incrementFiftyMoveDrawCounter();
                             actuator.addLine("incrementing move counter");
                         }
                     }
                 }
             }
         }
-
-        return currentState;
     }
 
-    /**
-     * Indicates whether a Three-Fold Repetition Draw has occurred.
-     * A Three-Fold Repetition is when the same position occurs three times, with the same player to move.
-     *
-     * @return true if the repetition has occurred.
-     */
-    private boolean isThreeFoldDraw() {
-        if (gameStates.size() > 8) {
-            GameState currentState = gameStates.get(gameStates.size() - 1);
-
-            int repetitions = 0;
-            for (int i = 0; i < gameStates.size() - 2; i++) {
-                if (gameStates.get(i).equals(currentState)) {
-                    repetitions++;
-                    if (repetitions == 3) {
-                        return true;
-                    }
-                }
-            }
-        }
-
-        return false;
-    }
-
-
     private static <T> void reverseArray(T[] array) {
         for (int i = 0; i < (array.length / 2) - 1; i++) {
             T temp = array[i];
@@ -239,60 +226,6 @@ class GameManagerText {
         }
     }
 
-    private HashMap<String, String> readPreferences() {
-        Scanner fileScanner;
-        HashMap<String, String> preferences = new HashMap<>();
-
-        try {
-            fileScanner = new Scanner(new File("prefs.dat"));
-        } catch (FileNotFoundException e) {
-            return preferences;
-        }
-
-        while (fileScanner.hasNextLine()) {
-            String next = fileScanner.nextLine();
-            String[] parts = next.split(":");
-            if (parts.length == 2) {
-                preferences.put(parts[0], parts[1]);
-            }
-        }
-
-        return preferences;
-    }
-
-    private void writePreferences(HashMap<String, String> preferences) {
-        File file = new File("prefs.dat");
-        try {
-            if (!file.exists()) {
-                //noinspection ResultOfMethodCallIgnored
-                file.createNewFile();
-            }
-        } catch (IOException e) {
-            return;
-        }
-        FileWriter fileWriter;
-        try {
-            fileWriter = new FileWriter(file);
-        } catch (IOException e) {
-            return;
-        }
-
-        for (String key : preferences.keySet()) {
-            try {
-                String s = key + ":" + preferences.get(key);
-                fileWriter.write(s);
-            } catch (IOException e) {
-                return;
-            }
-        }
-
-        try {
-            fileWriter.close();
-        } catch (IOException ignored) {
-
-        }
-    }
-
     private boolean asciiCompatCheck() {
         System.out.println("COMPATIBILITY CHECK!");
         System.out.println("Does the following character look like a question mark? (y/n)");
@@ -1,7 +1,7 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionListener;
-import java.io.*;
+import java.io.IOException;
 import java.util.ArrayList;
 
 /**
@@ -10,8 +10,6 @@ import java.util.ArrayList;
 @SuppressWarnings("FieldCanBeLocal")
 class GamePanel extends JPanel {
     private BoardPanel boardPanel;
-    private static String black = "black";
-    private static String white = "white";
 
     private static final String fileName = "save.dat";
 
@@ -25,7 +23,6 @@ class GamePanel extends JPanel {
         setLayout(new GridBagLayout());
     }
 
-    @SuppressWarnings("unchecked")
     String setUpBoard(boolean isNewGame) {
 
         String color = "white";
@@ -38,30 +35,24 @@ class GamePanel extends JPanel {
             newGame();
         } else {
 
-            ArrayList<GameState> gameStates = loadGame();
+            GameRecord record = loadGame();
 
-            if (gameStates == null) {
+            if (record == null) {
                 newGame();
             } else {
-                boardPanel = new BoardPanel(gameStates);
-                if (!gameStates.isEmpty()) {
-                    GameState currentState = gameStates.get(gameStates.size() - 1);
-                    color = currentState.getTurnColor();
-                }
+                boardPanel = new BoardPanel(record);
+                color = record.getCurrentState().getTurnColor();
             }
         }
 
 
         boardPanel.addNewGameListener(e -> setUpBoard(true));
         boardPanel.addChangeTurnListener(e -> changeTurn());
+        boardPanel.addEffectListener(AudioManager.getInstance()::playEffect);
         boardPanel.addSaveListener(e -> {
             try {
-                ArrayList<GameState> gameStates = (ArrayList<GameState>) boardPanel.getClientProperty(BoardPanel.STATES);
-                ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(fileName));
-                oos.writeObject(gameStates);
-                oos.flush();
-                oos.close();
-            } catch (ClassCastException | IOException exception) {
+                GameFile.write(fileName, boardPanel.getRecord());
+            } catch (IOException exception) {
                 System.out.println("Could not save");
             }
         });
@@ -79,30 +70,21 @@ class GamePanel extends JPanel {
 
     private void newGame() {
         //Creates BoardPanel
-        Board board = new Board(true);
+        long seed = GameRandom.newSeed();
+        Board board = new Board(true, seed);
 
         //Sets pieces on board.
-        setPieces(board);
+        PieceLayout.randomChess(board);
 
-        ArrayList<GameState> gameStates = new ArrayList<>();
-
-        gameStates.add(new GameState("white", board, null));
-
-        boardPanel = new BoardPanel(gameStates);
+        boardPanel = new BoardPanel(new GameRecord(new GameState("white", board, null, seed)));
     }
 
 
-    @SuppressWarnings("unchecked")
-    ArrayList<GameState> loadGame() {
-        try {
-            ObjectInputStream ois = new ObjectInputStream(new FileInputStream(fileName));
-            ArrayList<GameState> states = (ArrayList<GameState>) ois.readObject();
-            ois.close();
-
-            return states;
-        } catch (IOException | ClassNotFoundException e) {
-            return null;
-        }
+    /**
+     * @return the saved game, or null if there is none (or it was saved in an older format).
+     */
+    GameRecord loadGame() {
+        return GameFile.read(fileName);
     }
 
     private void changeTurn() {
@@ -118,24 +100,4 @@ class GamePanel extends JPanel {
     void addTurnChangeListener(ActionListener e) {
         turnChangeListeners.add(e);
     }
-
-    //Specifically made for a 16x16 board.
-    private void setPieces(Board board) {
-        initPiecesForColor(board, white, 11, 10);
-        initPiecesForColor(board, black, 4, 5);
-    }
-
-    private void initPiecesForColor(Board board, String color, int royalRow, int pawnRow) {
-        board.setSpace(new Space(new Rook(color)), royalRow, 4);
-        board.setSpace(new Space(new Knight(color)), royalRow, 5);
-        board.setSpace(new Space(new Bishop(color)), royalRow, 6);
-        board.setSpace(new Space(new Queen(color)), royalRow, 7);
-        board.setSpace(new Space(new King(color)), royalRow, 8);
-        board.setSpace(new Space(new Bishop(color)), royalRow, 9);
-        board.setSpace(new Space(new Knight(color)), royalRow, 10);
-        board.setSpace(new Space(new Rook(color)), royalRow, 11);
-        for (int i = 4; i < 12; i++) {
-            board.setSpace(new Space(new Pawn(color)), pawnRow, i);
-        }
-    }
 }
@@ -0,0 +1,112 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Source of the random numbers of a game: the board layout, the tile effects and the outcome of random effects.
+ * <p>
+ * It is the SplitMix64 generator used by java.util.SplittableRandom, but it can be copied and saved with a GameState,
+ * so a game continues with the same numbers after it is loaded. A generator is seeded once per game (the seed is
+ * recorded in the GameState), and split into independent generators for parallel work, without any shared state.
+ * <p>
+ * Not thread-safe; give each thread its own generator with split.
+ */
+class GameRandom implements Serializable {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final AtomicLong seedUniquifier = new AtomicLong(System.nanoTime());
+
+    private long state;
+    private final long gamma; //Always odd.
+
+    GameRandom(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    GameRandom(GameRandom other) {
+        this(other.state, other.gamma);
+    }
+
+    private GameRandom(long state, long gamma) {
+        this.state = state;
+        this.gamma = gamma;
+    }
+
+    /**
+     * @return a seed for a new game, different every time.
+     */
+    static long newSeed() {
+        return mix64(seedUniquifier.getAndAdd(GOLDEN_GAMMA)) ^ mix64(System.nanoTime());
+    }
+
+    /**
+     * @return a new generator, independent from this one, which moves on.
+     */
+    GameRandom split() {
+        return new GameRandom(mix64(nextSeed()), mixGamma(nextSeed()));
+    }
+
+    long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    /**
+     * @return a number from 0 (inclusive) to bound (exclusive), each as likely as the others.
+     */
+    int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive, got " + bound);
+        }
+        //Rejects the few values that would make the low numbers more likely.
+        int bits;
+        int value;
+        do {
+            bits = (int) (nextLong() >>> 33);
+            value = bits % bound;
+        } while (bits - value + (bound - 1) < 0);
+        return value;
+    }
+
+    /**
+     * @return a well mixed number from the given values, for things that must look random but always be the same
+     * for the same values.
+     */
+    static int hash(long seed, int a, int b) {
+        return (int) (mix64(seed + GOLDEN_GAMMA * (a * 31L + b + 1)) >>> 33);
+    }
+
+    /**
+     * Writes the generator, so that read gives back one that draws the same numbers.
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeLong(state);
+        out.writeLong(gamma);
+    }
+
+    static GameRandom read(DataInput in) throws IOException {
+        long state = in.readLong();
+        long gamma = in.readLong() | 1L;
+        return new GameRandom(state, gamma);
+    }
+
+    private long nextSeed() {
+        return state += gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int transitions = Long.bitCount(z ^ (z >>> 1));
+        return transitions < 24 ? z ^ 0xAAAAAAAAAAAAAAAAL : z;
+    }
+}
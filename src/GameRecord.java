@@ -0,0 +1,179 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The history of a game: its first state, the state it is in now, and a log of the moves played in between.
+ * <p>
+ * Each move is logged as a few ints (the move, the outcome of the effect it landed on, what undo needs to restore and
+ * the Zobrist key of the state before it) where keeping a GameState per move would copy the whole board. The board
+ * of the current state keeps its own record of every change (see Board.makeMove), which undo takes back. Threefold
+ * repetitions are counted as moves are added, and any earlier state can be rebuilt with stateAt, which replays the
+ * moves from the closest checkpoint: a copy of the state every CHECKPOINT_INTERVAL moves, made the first time it is
+ * needed.
+ */
+class GameRecord {
+
+    private static final int CHECKPOINT_INTERVAL = 32;
+
+    private static final int OUTCOME_SHIFT = 16; //Bits 0-15 of a move record hold the move, the rest the outcome + 1.
+    private static final int LAST_MOVE_SHIFT = 16; //Bits 0-15 of an undo record hold the fifty move draw counter.
+
+    private final GameState initialState;
+    private final GameState currentState;
+    private int[] moves = new int[64];
+    private int[] undoInfo = new int[64]; //Fifty move draw counter and last move square + 1 before each move.
+    private long[] keys = new long[64]; //Zobrist key of the state before each move.
+    private int size;
+    private final RepetitionTable repetitions = new RepetitionTable(); //Occurrences of each key in keys.
+    private final ArrayList<GameState> checkpoints = new ArrayList<>(); //The state after every CHECKPOINT_INTERVAL moves.
+    private TranspositionTable legalMoves; //Legal moves hasAvailableMove found, made when it is first used.
+
+    /**
+     * @param initialState the state before the first move. The record plays on a copy of it.
+     */
+    GameRecord(GameState initialState) {
+        this.initialState = new GameState(initialState);
+        this.initialState.setTakenPieces(copyTakenPieces(initialState));
+        currentState = new GameState(this.initialState);
+        currentState.setTakenPieces(copyTakenPieces(initialState));
+        checkpoints.add(this.initialState);
+    }
+
+    GameState getInitialState() {
+        return initialState;
+    }
+
+    /**
+     * @return the state after the last move. Moves must be played on it through this record (see play).
+     */
+    GameState getCurrentState() {
+        return currentState;
+    }
+
+    /**
+     * Plays a legal move on the current state (see GameState.playMove) and logs it.
+     *
+     * @param outcome outcome of the effect the move lands on, or GameState.NO_EFFECT to draw it.
+     * @return what the effect the move landed on did, or null if it didn't land on one.
+     */
+    EffectResult play(int move, int outcome) {
+        log(move);
+        EffectResult result = currentState.playMove(move, outcome);
+        if (result != null) {
+            moves[size - 1] |= (result.outcome + 1) << OUTCOME_SHIFT;
+        }
+        return result;
+    }
+
+    /**
+     * Logs a move the current state is about to play, with what undo needs to restore.
+     */
+    private void log(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+            undoInfo = Arrays.copyOf(undoInfo, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        Position lastMove = currentState.getLastMove();
+        int lastMoveSquare = lastMove != null ? BitBoard.square(lastMove.row, lastMove.col) + 1 : 0;
+
+        moves[size] = move & 0xFFFF;
+        undoInfo[size] = currentState.getFiftyMoveDrawCounter() | (lastMoveSquare << LAST_MOVE_SHIFT);
+        keys[size] = currentState.getZobristKey();
+        repetitions.increment(keys[size]);
+        size++;
+    }
+
+    /**
+     * Takes back the last move, restoring the current state to what it was before it.
+     */
+    void undo() {
+        if (size == 0) {
+            throw new IllegalStateException("There is no move to undo.");
+        }
+        size--;
+        repetitions.decrement(keys[size]);
+        while (checkpoints.size() - 1 > size / CHECKPOINT_INTERVAL) {
+            checkpoints.remove(checkpoints.size() - 1);
+        }
+
+        Piece captured = currentState.getBoard().unmakeMove();
+        if (captured != null) {
+            ArrayList<Piece> taken = currentState.getTakenPieces(captured.getColor());
+            taken.remove(taken.size() - 1);
+        }
+        int lastMoveSquare = (undoInfo[size] >>> LAST_MOVE_SHIFT) - 1;
+        currentState.setLastMove(lastMoveSquare >= 0
+                ? new Position(BitBoard.row(lastMoveSquare), BitBoard.col(lastMoveSquare)) : null);
+        currentState.setFiftyMoveDrawCounter(undoInfo[size] & 0xFFFF);
+        currentState.changeTurn();
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the move, without its flags.
+     */
+    int getMove(int index) {
+        return moves[index] & 0xFFFF;
+    }
+
+    int getOutcome(int index) {
+        return (moves[index] >>> OUTCOME_SHIFT) - 1;
+    }
+
+    /**
+     * Indicates whether a Three-Fold Repetition Draw has occurred: the state before the last move occurred three
+     * times before, with the same player to move.
+     */
+    boolean isThreeFoldDraw() {
+        //Three earlier occurrences, plus the current one.
+        return size > 0 && repetitions.count(keys[size - 1]) > 3;
+    }
+
+    /**
+     * Indicates whether the player to move in the current state has a legal move. The moves found are kept for the
+     * positions of this game that come up again (see GameState.hasAvailableMove).
+     */
+    boolean hasAvailableMove() {
+        if (legalMoves == null) {
+            legalMoves = new TranspositionTable(1);
+        }
+        return currentState.hasAvailableMove(currentState.getBoard(), legalMoves);
+    }
+
+    /**
+     * @return a new copy of the state after the given number of moves.
+     */
+    GameState stateAt(int ply) {
+        if (ply < 0 || ply > size) {
+            throw new IndexOutOfBoundsException("Ply " + ply + " of a game of " + size + " moves.");
+        }
+        int checkpoint = Math.min(ply / CHECKPOINT_INTERVAL, checkpoints.size() - 1);
+        GameState state = new GameState(checkpoints.get(checkpoint));
+        state.setTakenPieces(copyTakenPieces(state));
+
+        for (int i = checkpoint * CHECKPOINT_INTERVAL; i < ply; i++) {
+            state.playMove(getMove(i), getOutcome(i));
+            state.getBoard().clearUndoHistory();
+            if ((i + 1) % CHECKPOINT_INTERVAL == 0 && checkpoints.size() == (i + 1) / CHECKPOINT_INTERVAL) {
+                GameState copy = new GameState(state);
+                copy.setTakenPieces(copyTakenPieces(state));
+                checkpoints.add(copy);
+            }
+        }
+        return state;
+    }
+
+    private static HashMap<String, ArrayList<Piece>> copyTakenPieces(GameState state) {
+        HashMap<String, ArrayList<Piece>> takenPieces = new HashMap<>();
+        for (Map.Entry<String, ArrayList<Piece>> entry : state.getTakenPieces().entrySet()) {
+            takenPieces.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        return takenPieces;
+    }
+}
@@ -1,26 +1,63 @@
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * The settings of the game, shared by the window and the text game: kept in memory, and saved to settings.txt.
+ * <p>
+ * put only changes the map and asks for a save FLUSH_DELAY later on a background thread, so the changes made in the
+ * meantime are saved together and the caller (usually the event dispatch thread) never waits for the disk. A save
+ * writes a temporary file and renames it over settings.txt, so a crash leaves either the old settings or the new ones,
+ * never half a file. Changes not yet saved when the game exits are saved by a shutdown hook.
+ * <p>
+ * The file has one setting a line, as key=value. Values are booleans, ints or strings without line breaks, and are
+ * read back as the first of those they can be. Settings saved by older versions (Java serialization in settings.dat,
+ * and the text game's key:value lines in prefs.dat) are read the first time, when there is no settings.txt.
+ */
 @SuppressWarnings("SameParameterValue")
 class GameSettings {
     private static final GameSettings instance = new GameSettings();
-    private HashMap<String, Object> settings;
-    private final File file = new File("settings.dat");
+    private final ConcurrentHashMap<String, Object> settings = new ConcurrentHashMap<>();
+    private final File file = new File("settings.txt");
+    private final File tempFile = new File("settings.txt.tmp");
+
+    private static final long FLUSH_DELAY = 250; //Milliseconds from a change to the save that includes it.
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "Settings");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean flushScheduled; //Guarded by this.
+    private boolean dirty; //Guarded by this. There are changes that haven't been saved.
+    private long version; //Guarded by this. Counts the saves, so an older one can't overwrite a newer one.
+    private final Object writeLock = new Object(); //Held while writing the file, which put doesn't wait for.
+    private long writtenVersion; //Guarded by writeLock.
 
     static final String FULLSCREEN = "full_screen";
     static final String MUTED = "muted";
+    static final String COMPUTER_PLAYER = "computer_player";
+    static final String USE_ASCII = "use_ascii"; //Text game: draws the pieces with chess symbols.
 
     private GameSettings() {
-        try {
-            boolean isNewFile = file.createNewFile();
-            if (isNewFile){
-                settings = new HashMap<>();
-                writeSettings();
+        if (file.exists()) {
+            readSettings();
+        } else {
+            readLegacySettings();
+            if (!settings.isEmpty()) {
+                scheduleFlush();
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
-        readSettings();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "Settings shutdown"));
     }
 
     static GameSettings getInstance() {
@@ -28,42 +65,151 @@ class GameSettings {
     }
 
     void initDefaults() {
-        if (!settings.containsKey(FULLSCREEN)) {
-            settings.put(FULLSCREEN, false);
-        }
-        if (!settings.containsKey(MUTED)) {
-            settings.put(MUTED, false);
-        }
+        settings.putIfAbsent(FULLSCREEN, false);
+        settings.putIfAbsent(MUTED, false);
+        settings.putIfAbsent(COMPUTER_PLAYER, false);
     }
 
     Object get(String key) {
         return settings.getOrDefault(key, null);
     }
 
+    boolean containsKey(String key) {
+        return settings.containsKey(key);
+    }
+
+    /**
+     * Changes a setting. It is saved shortly after, on a background thread.
+     */
     void put(String key, Object value) {
+        if (!(value instanceof Boolean || value instanceof Integer || value instanceof String)) {
+            throw new IllegalArgumentException("Settings can't hold " + value);
+        }
+        if (key.contains("=") || hasLineBreak(key) || hasLineBreak(value.toString())) {
+            throw new IllegalArgumentException("Setting " + key + " can't be saved as a line.");
+        }
         settings.put(key, value);
-        writeSettings();
+        scheduleFlush();
+    }
+
+    private synchronized void scheduleFlush() {
+        dirty = true;
+        if (!flushScheduled) {
+            flushScheduled = true;
+            flusher.schedule(this::flush, FLUSH_DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Saves the settings now, if they changed since they were last saved.
+     */
+    void flush() {
+        TreeMap<String, Object> snapshot;
+        long snapshotVersion;
+        synchronized (this) {
+            flushScheduled = false;
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            snapshot = new TreeMap<>(settings);
+            snapshotVersion = ++version;
+        }
+        synchronized (writeLock) {
+            if (snapshotVersion < writtenVersion) {
+                return;
+            }
+            try {
+                writeSettings(snapshot);
+                writtenVersion = snapshotVersion;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
     }
 
-    @SuppressWarnings("unchecked")
     private void readSettings() {
-        try {
-            FileInputStream fis = new FileInputStream(file);
-            ObjectInputStream ois = new ObjectInputStream(fis);
-            settings = (HashMap<String, Object>) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('=');
+                if (separator > 0 && !line.startsWith("#")) {
+                    settings.put(line.substring(0, separator), parseValue(line.substring(separator + 1)));
+                }
+            }
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    private void writeSettings() {
+    /**
+     * Reads the settings of the window (settings.dat) and of the text game (prefs.dat) as older versions saved them.
+     */
+    @SuppressWarnings("unchecked")
+    private void readLegacySettings() {
+        File legacySettings = new File("settings.dat");
+        if (legacySettings.exists()) {
+            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(legacySettings))) {
+                for (Map.Entry<String, Object> entry : ((HashMap<String, Object>) ois.readObject()).entrySet()) {
+                    if (entry.getValue() != null) {
+                        settings.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                e.printStackTrace();
+            }
+        }
+
+        File legacyPreferences = new File("prefs.dat");
+        if (legacyPreferences.exists()) {
+            //Lines of key:value. Only the first can be trusted, as they were written without line breaks.
+            try (BufferedReader reader = new BufferedReader(new FileReader(legacyPreferences))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.split(":");
+                    if (parts.length == 2) {
+                        settings.put(parts[0], parseValue(parts[1]));
+                    }
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Writes the settings to a temporary file, forces it to the disk, and renames it over the settings file.
+     */
+    private void writeSettings(Map<String, Object> settings) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            for (Map.Entry<String, Object> entry : settings.entrySet()) {
+                writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+            }
+            writer.flush();
+            out.getFD().sync();
+        }
         try {
-            FileOutputStream fis = new FileOutputStream(file);
-            ObjectOutputStream oos = new ObjectOutputStream(fis);
-            oos.writeObject(settings);
-            oos.close();
-        } catch (IOException e) {
-            e.printStackTrace();
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
         }
     }
+
+    private static Object parseValue(String value) {
+        if (value.equals("true") || value.equals("false")) {
+            return Boolean.valueOf(value);
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    private static boolean hasLineBreak(String s) {
+        return s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0;
+    }
 }
@@ -16,6 +16,11 @@ public class GameState implements Serializable {
     private Position lastMove;
     private HashMap<String, ArrayList<Piece>> takenPieces = new HashMap<>();    //Stores the takenPieces pieces by their color.
     private int fiftyMoveDrawCounter = 0;
+    private transient MoveList moveBuffer; //Reused by the move legality checks.
+    private long seed; //Seed of the game's random numbers, so that a game can be reproduced.
+    private GameRandom random; //Draws the random events of the game. Each state has its own copy.
+
+    static final int NO_EFFECT = -1; //Outcome of a move that didn't land on an effect.
 
     /**
      * Default constructor. Warning! Objects created with this constructor must have values initialized in some other
@@ -33,9 +38,19 @@ public class GameState implements Serializable {
      * @param lastMove Final position of last successfully moved piece.
      */
     public GameState(String turn, Board board, Position lastMove) {
+        this(turn, board, lastMove, GameRandom.newSeed());
+    }
+
+    /**
+     * @param seed Seed of the game. The random events of the game are drawn from a generator split from it, so they
+     *             don't repeat the numbers a board made with the same seed was drawn from.
+     */
+    GameState(String turn, Board board, Position lastMove, long seed) {
         this.turnColor = turn;
         this.board = board;
         this.lastMove = lastMove;
+        this.seed = seed;
+        random = new GameRandom(seed).split();
     }
 
     public GameState(GameState gameState) {
@@ -44,6 +59,8 @@ public class GameState implements Serializable {
         lastMove = gameState.lastMove != null ? new Position(gameState.lastMove) : null;
         takenPieces = gameState.takenPieces;
         fiftyMoveDrawCounter = gameState.fiftyMoveDrawCounter;
+        seed = gameState.seed;
+        random = new GameRandom(gameState.getRandom());
     }
 
     public void changeTurn() {
@@ -74,10 +91,33 @@ public class GameState implements Serializable {
         board = b;
     }
 
+    long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the generator of the game's random events. Drawing from it moves this state's copy on, but not the
+     * copies in earlier states.
+     */
+    GameRandom getRandom() {
+        if (random == null) {
+            random = new GameRandom(seed).split(); //States saved before the generator was kept.
+        }
+        return random;
+    }
+
+    void setRandom(GameRandom random) {
+        this.random = random;
+    }
+
     public HashMap<String, ArrayList<Piece>> getTakenPieces() {
         return takenPieces;
     }
 
+    public void setTakenPieces(HashMap<String, ArrayList<Piece>> takenPieces) {
+        this.takenPieces = takenPieces;
+    }
+
     public ArrayList<Piece> getTakenPieces(String color) {
         return takenPieces.get(color);
     }
@@ -109,6 +149,55 @@ public class GameState implements Serializable {
         this.fiftyMoveDrawCounter = fiftyMoveDrawCounter;
     }
 
+    /**
+     * Plays a legal move of the current player with the rules of BoardPanel: the piece lands on its square, the effect
+     * there (if any) is applied with an outcome drawn from this state's generator, a captured piece is added to the
+     * taken pieces and the turn changes.
+     * <p>
+     * Like Board.makeMove, the changes to the board are recorded so they can be taken back (see GameRecord.undo).
+     * Games that only go forward clear the board's undo history.
+     *
+     * @return what the effect the piece landed on did (with its outcome), or null if it didn't land on one.
+     */
+    EffectResult playMove(int move) {
+        return playMove(move, NO_EFFECT);
+    }
+
+    /**
+     * Same as playMove(int), but the effect has the given outcome instead of a new one, as when a game is replayed.
+     *
+     * @param outcome outcome of the effect, or NO_EFFECT to draw it.
+     */
+    EffectResult playMove(int move, int outcome) {
+        Piece captured = board.makeMove(move);
+        Position to = Move.toPosition(move);
+        Effect effect = board.getSpace(to).getEffect();
+        EffectResult result = null;
+        if (effect != null) {
+            if (outcome == NO_EFFECT) {
+                outcome = effect.drawOutcome(board, to, getRandom());
+            }
+            result = effect.apply(board, to, outcome);
+        }
+
+        if (captured != null) {
+            addTakenPiece(captured);
+            resetFiftyMoveDrawCounter();
+        } else {
+            incrementFiftyMoveDrawCounter();
+        }
+        lastMove = to;
+        changeTurn();
+        return result;
+    }
+
+    /**
+     * @return the Zobrist hash of this state: the board and the color whose turn it is.
+     */
+    long getZobristKey() {
+        return board.getZobristKey() ^ Zobrist.turn(turnColor);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -118,9 +207,13 @@ public class GameState implements Serializable {
                 Objects.equals(board, gameState.board);
     }
 
+    /**
+     * Consistent with equals, so states can be used as HashMap keys. A state must not be changed while it is a key.
+     * Like Board.hashCode, it is computed without boxing or allocating.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(turnColor, board);
+        return 31 * Objects.hashCode(turnColor) + Objects.hashCode(board);
     }
 
 
@@ -131,75 +224,156 @@ public class GameState implements Serializable {
      * @return
      */
     public boolean hasAvailableMove(Board board) {
-        boolean hasAvailableMove = false;
-
-        //iterate through every space on the board
-        for (int i = 0; i < board.getRows() && !hasAvailableMove; i++) {
-            for (int j = 0; j < board.getCols() && !hasAvailableMove; j++) {
-                Position position = new Position(i, j);
-                Space space = board.getSpace(position);
-
-                //Check for a piece at that location
-                if (space != null) {
-                    Piece piece = space.getPiece();
-                    hasAvailableMove = hasAvailableMove(board, piece, position);
-                }
+        return findLegalMove(board) != Move.NONE;
+    }
+
+    /**
+     * Same as hasAvailableMove(Board), but the legal move found is kept in the table, so a position that comes up
+     * again (a repetition, a move undone and played again) is answered with a single legality check of that move.
+     * That there is no legal move is not kept: the key doesn't cover whether a pawn has moved, so a position with the
+     * same key can have a move (a pawn's double step) that the one looked at before didn't.
+     *
+     * @param legalMoves the table of the game (see GameRecord.hasAvailableMove).
+     */
+    boolean hasAvailableMove(Board board, TranspositionTable legalMoves) {
+        long key = board.getZobristKey() ^ Zobrist.turn(turnColor);
+        long entry = legalMoves.probe(key);
+        if (entry != TranspositionTable.MISS) {
+            //The move may not be one this position has, for the same reason, so it is checked again.
+            int move = TranspositionTable.move(entry);
+            if (isPseudoLegal(board, move) && isLegal(board, move)) {
+                return true;
             }
         }
 
-        return hasAvailableMove;
+        int move = findLegalMove(board);
+        if (move == Move.NONE) {
+            return false;
+        }
+        legalMoves.store(key, move, 0, 0, TranspositionTable.EXACT);
+        return true;
     }
 
-    private boolean hasAvailableMove(Board board, Piece piece, Position position) {
-        boolean hasAvailableMove = false;
-
-        if (piece != null) {
-            if (piece.getColor().equals(turnColor)) {
-                HashSet<Position> moves = piece.getAvailableMoves(board, position);
+    /**
+     * @return a move of the current player that doesn't put the king in check, or Move.NONE if there isn't one.
+     */
+    private int findLegalMove(Board board) {
+        MoveList moves = getMoveBuffer();
+        long[] pieces = board.getBitBoard().getColor(BitBoard.colorIndex(turnColor));
+
+        //iterate through every piece of the current player
+        for (int word = 0; word < BitBoard.WORDS; word++) {
+            long bits = pieces[word];
+            while (bits != 0) {
+                int square = (word << 6) | Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                int row = BitBoard.row(square);
+                int col = BitBoard.col(square);
+                moves.clear();
+                board.getSpace(row, col).getPiece().generateMoves(board, row, col, moves);
+                for (int i = 0; i < moves.size(); i++) {
+                    if (isLegal(board, moves.get(i))) {
+                        return moves.get(i);
+                    }
+                }
+            }
+        }
 
-                Iterator<Position> movesIterator = moves.iterator();
-                while (movesIterator.hasNext() && !hasAvailableMove) {
-                    Position move = movesIterator.next();
-                    if (piece.legalMove(board, move)) {
-                        Board tempBoard = new Board(board);
-                        Status status = tempBoard.getSpace(position).getPiece().move(tempBoard, position, move);
+        return Move.NONE;
+    }
 
-                        hasAvailableMove = !status.status.equals(Status.STATUS_BAD) && !tempBoard.kingInCheck(turnColor);
+    /**
+     * Indicates whether the move is one the piece on its from square, which must be the current player's, can make.
+     */
+    private boolean isPseudoLegal(Board board, int move) {
+        int row = BitBoard.row(Move.from(move));
+        int col = BitBoard.col(Move.from(move));
+        if (row >= board.getRows() || col >= board.getCols()) {
+            return false;
+        }
+        Space space = board.getSpace(row, col);
+        if (space == null || space.getPiece() == null || !space.getPiece().getColor().equals(turnColor)) {
+            return false;
+        }
 
-                    }
-                }
+        MoveList moves = getMoveBuffer();
+        moves.clear();
+        space.getPiece().generateMoves(board, row, col, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.get(i) == move) {
+                return true;
             }
         }
-        return hasAvailableMove;
+        return false;
     }
 
     HashSet<Position> availableMoves(Board board, Piece piece, Position position) {
         HashSet<Position> availableMoves = new HashSet<>();
 
+        MoveList moves = getMoveBuffer();
+        moves.clear();
+        availableMoves(board, piece, position.row, position.col, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            availableMoves.add(Move.toPosition(moves.get(i)));
+        }
 
-        if (piece != null) {
-//            System.out.println("Piece.color = " + piece.getColor());
-//            System.out.println("turnColor = " + turnColor);
-            if (piece.getColor().equals(turnColor)) {
-                HashSet<Position> moves = piece.getAvailableMoves(board, position);
-
-//                System.out.println(moves);
-
-                for (Position move : moves) {
-                    if (piece.legalMove(board, move)) {
-                        Board tempBoard = new Board(board);
-                        Status status = tempBoard.getSpace(position).getPiece().move(tempBoard, position, move);
+        return availableMoves;
+    }
 
-                        if (!status.status.equals(Status.STATUS_BAD) && !tempBoard.kingInCheck(turnColor)) {
-                            availableMoves.add(move);
-                        }
-                    }
+    /**
+     * Appends every move of the given piece that doesn't put the king in check to the list.
+     * Nothing is added if the piece doesn't belong to the current player.
+     */
+    void availableMoves(Board board, Piece piece, int row, int col, MoveList moves) {
+        if (piece != null && piece.getColor().equals(turnColor)) {
+            int start = moves.size();
+            piece.generateMoves(board, row, col, moves);
+
+            //Keeps the legal moves at the front of the newly added moves.
+            int end = start;
+            for (int i = start; i < moves.size(); i++) {
+                int move = moves.get(i);
+                if (isLegal(board, move)) {
+                    moves.set(end++, move);
                 }
             }
+            moves.truncate(end);
         }
+    }
 
-//        System.out.println(availableMoves);
+    /**
+     * Appends every move of the current player that doesn't put the king in check to the list.
+     */
+    void availableMoves(Board board, MoveList moves) {
+        int start = moves.size();
+        board.generateMoves(BitBoard.colorIndex(turnColor), moves);
+
+        int end = start;
+        for (int i = start; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (isLegal(board, move)) {
+                moves.set(end++, move);
+            }
+        }
+        moves.truncate(end);
+    }
 
-        return availableMoves;
+    /**
+     * Indicates whether the move (generated for a piece of the current player) leaves the king out of check.
+     */
+    private boolean isLegal(Board board, int move) {
+        board.makeMove(move);
+        boolean isLegal = !board.kingInCheck(turnColor);
+        board.unmakeMove();
+
+        return isLegal;
+    }
+
+    private MoveList getMoveBuffer() {
+        if (moveBuffer == null) {
+            moveBuffer = new MoveList();
+        }
+        return moveBuffer;
     }
-}
\ No newline at end of file
+}
@@ -1,27 +1,32 @@
+import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads the images in the assets folder, and keeps copies of them drawn at the sizes they are shown at.
+ * <p>
+ * Images are decoded on AssetLoader's threads when they are preloaded, or else the first time they are used, so the
+ * ones that are rarely shown aren't decoded at startup.
+ */
 class ImageManager {
     private ImageManager() {
-        images = new HashMap<>();
-
-        int headerSize = "assets/".length();
-        int footerSize = ".png".length();
-
+        //Only finds the images. Decoding them is what takes time.
         File folder = new File("assets");
         for (File file : Objects.requireNonNull(folder.listFiles())) {
-            if (file.getName().contains(".png")) {
-                ImageIcon icon = new ImageIcon(file.getPath());
-                String key = file.getPath().toLowerCase();
-                key = key.substring(headerSize, key.length() - footerSize);
-                images.put(key, icon);
+            String name = file.getName().toLowerCase();
+            if (name.endsWith(".png") || name.endsWith(".gif")) {
+                files.put(name.substring(0, name.lastIndexOf('.')), file);
             }
         }
-
-//        System.out.println(images);
     }
 
     private static final ImageManager imageManager = new ImageManager();
@@ -30,10 +35,128 @@ class ImageManager {
         return imageManager;
     }
 
-    private final HashMap<String, ImageIcon> images;
+    private final HashMap<String, File> files = new HashMap<>(); //Not changed once the manager is made.
+    private final ConcurrentHashMap<String, CompletableFuture<ImageIcon>> images = new ConcurrentHashMap<>();
+
+    private static final int MAX_SPRITES = 256; //Every tile, effect and piece sprite of the board at a few sizes.
+
+    //Images drawn at a given size, keyed by name and size, from the least to the most recently used.
+    private final LinkedHashMap<String, BufferedImage> sprites = new LinkedHashMap<String, BufferedImage>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+            return size() > MAX_SPRITES;
+        }
+    };
+
+    /**
+     * Starts decoding the images on AssetLoader's threads, in the order given, so they are ready when they are shown.
+     */
+    void preload(Iterable<String> names) {
+        for (String name : names) {
+            String key = name.toLowerCase();
+            if (files.containsKey(key)) {
+                images.computeIfAbsent(key, k -> AssetLoader.load(files.get(k).getName(), () -> decode(k)));
+            }
+        }
+    }
 
+    /**
+     * Returns the image, waiting for it if it is being preloaded, or decoding it now if it wasn't.
+     *
+     * @return the image, or null if there is no image with that name.
+     */
     ImageIcon getImage(String name) {
-        return images.get(name.toLowerCase());
+        String key = name.toLowerCase();
+        if (!files.containsKey(key)) {
+            return null;
+        }
+        CompletableFuture<ImageIcon> image = images.get(key);
+        if (image == null) {
+            CompletableFuture<ImageIcon> decoded = new CompletableFuture<>();
+            image = images.putIfAbsent(key, decoded);
+            if (image == null) {
+                decoded.complete(AssetLoader.loadNow(files.get(key).getName(), () -> decode(key)));
+                image = decoded;
+            }
+        }
+        return image.join();
+    }
+
+    /**
+     * @return the image of the file, or null if it can't be read.
+     */
+    private ImageIcon decode(String name) {
+        File file = files.get(name);
+        if (file.getName().endsWith(".gif")) {
+            return new ImageIcon(file.getPath()); //The toolkit keeps the frames of an animation, ImageIO only the first.
+        }
+        try {
+            //Unlike new ImageIcon(path), which loads one image at a time, ImageIO decodes on every thread at once.
+            BufferedImage image = ImageIO.read(file);
+            return image != null ? new ImageIcon(image) : null;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Could not load image " + file + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the image drawn at the given size, so that it can be painted without scaling it again. Sprites are drawn
+     * once per size and kept, and the ones that haven't been used for the longest time are dropped, so the sizes a
+     * component had before it was resized go away on their own.
+     *
+     * @return the sprite, or null if there is no image with that name or the size is empty.
+     */
+    synchronized BufferedImage getSprite(String name, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        String key = name + '@' + width + 'x' + height;
+        BufferedImage sprite = sprites.get(key);
+        if (sprite == null) {
+            ImageIcon image = getImage(name);
+            if (image == null) {
+                return null;
+            }
+            sprite = render(image.getImage(), width, height);
+            sprites.put(key, sprite);
+        }
+        return sprite;
+    }
+
+    /**
+     * Draws the image at the given size. Big reductions are done in steps of one half, which keeps the detail that a
+     * single bilinear pass would skip over.
+     */
+    private static BufferedImage render(Image image, int width, int height) {
+        int currentWidth = Math.max(1, image.getWidth(null));
+        int currentHeight = Math.max(1, image.getHeight(null));
+        Image current = image;
+        do {
+            currentWidth = currentWidth >= width * 2 ? currentWidth / 2 : width;
+            currentHeight = currentHeight >= height * 2 ? currentHeight / 2 : height;
+
+            BufferedImage step = createCompatibleImage(currentWidth, currentHeight);
+            Graphics2D g = step.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            g.dispose();
+            current = step;
+        } while (currentWidth != width || currentHeight != height);
+        return (BufferedImage) current;
+    }
+
+    /**
+     * @return a translucent image in the screen's pixel format, which can be copied to the screen without converting
+     * it.
+     */
+    private static BufferedImage createCompatibleImage(int width, int height) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+                    .createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
     }
 
     ImageIcon getScaledImage(String name) {
@@ -69,7 +192,7 @@ class ImageManager {
             height = (int) (h * internalSize);
         }
 
-        return new ImageIcon(fsImage.getScaledInstance(width, height, 0));
+        return new ImageIcon(render(fsImage, width, height));
     }
 
 
@@ -1,5 +1,3 @@
-import java.util.HashSet;
-
 public class King extends Piece {
 
     private String color;
@@ -13,12 +11,9 @@ public class King extends Piece {
 
 
     @Override
-    public HashSet<Position> getAvailableMoves(Board board, int row, int col) {
-        HashSet<Position> availableMoves = new HashSet<>();
-        for (Position direction: Position.cardinalDirections){
-            probeByDirectionVector(board, row, col, direction, availableMoves, 1, 1);
-        }
-        return availableMoves;
+    void generateMoves(Board board, int row, int col, MoveList moves) {
+        board.getBitBoard().kingAttacks(BitBoard.square(row, col), moves.targets);
+        addTargets(board, BitBoard.square(row, col), moves);
     }
 
     @Override
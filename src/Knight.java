@@ -1,5 +1,3 @@
-import java.util.HashSet;
-
 public class Knight extends Piece {
 
     private String color;
@@ -11,22 +9,12 @@ public class Knight extends Piece {
         color = c;
     }
 
-    private static final Position[] directionVectors = new Position[]{new Position(2, 1),
-            new Position(2, -1), new Position(-1, 2), new Position(-1, -2),
-            new Position(-2, 1), new Position(-2, -1), new Position(1, 2),
-            new Position(1, -2)
-    };
-
     @Override
-    public HashSet<Position> getAvailableMoves(Board board, int row, int col) {
-        HashSet<Position> availableMoves = new HashSet<>();
-        for (Position direction: directionVectors){
-            probeByDirectionVector(board, row, col, direction, availableMoves, 1, 1);
-        }
-        return availableMoves;
+    void generateMoves(Board board, int row, int col, MoveList moves) {
+        board.getBitBoard().knightAttacks(BitBoard.square(row, col), moves.targets);
+        addTargets(board, BitBoard.square(row, col), moves);
     }
 
-
     @Override
     public int getValue() {
         return value;
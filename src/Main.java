@@ -1,11 +1,40 @@
 import javax.swing.*;
+import java.util.Arrays;
 
 /**
  * Driver for UI.
+ * <p>
+ * The images the main menu shows are decoded first, then the ones the board is drawn with, and the sounds, all on
+ * AssetLoader's threads, while the window is being made. The menu is shown as soon as its own images are ready.
+ * Other images are decoded the first time they are used.
+ * <p>
+ * Usage: java Main [--startup-report], which prints how long startup and each asset took once the assets are loaded.
  */
 public class Main {
+
+    private static final String[] menuImages = {
+            "logo_chess", "continue_button", "continue_button_push", "new_game_button", "new_game_button_push",
+            "game_modes_button", "game_modes_button_push", "quit_button", "quit_button_push",
+            "full_screen_icon", "full_screen_icon_push", "exit_full_screen_icon", "exit_full_screen_icon_push",
+            "question_mark_icon", "question_mark_icon_push", "pause_button", "pause_button_push",
+            "play_button", "play_button_push", "volume_mute_button", "volume_mute_button_push",
+            "volume_on_button", "volume_on_button_push", "pawn_blue", "pawn_red", "turn_word"
+    };
+
     public static void main(String[] args) {
+        boolean startupReport = Arrays.asList(args).contains("--startup-report");
+
+        ImageManager imageManager = ImageManager.getInstance();
+        imageManager.preload(Arrays.asList(menuImages));
+        imageManager.preload(BoardView.getImageNames());
         AudioManager.getInstance().playTestSound();
-        SwingUtilities.invokeLater(MainFrame::new);
+
+        SwingUtilities.invokeLater(() -> {
+            new MainFrame();
+            AssetLoader.mark("Main menu shown");
+            if (startupReport) {
+                AssetLoader.whenLoaded().thenRun(AssetLoader::printReport);
+            }
+        });
     }
 }
@@ -206,8 +206,18 @@ class MainFrame extends JFrame {
             gamePanel.setVisible(true);
             validate();
         });
-        //Quit button
+        //Game modes button
         mainMenuPanel.getButton(2).addActionListener(e -> {
+            String[] modes = {"Two players", "Versus computer"};
+            boolean computerPlayer = (boolean) gameSettings.get(GameSettings.COMPUTER_PLAYER);
+            int choice = JOptionPane.showOptionDialog(this, "Who plays blue?", "Game mode",
+                    JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, modes, modes[computerPlayer ? 1 : 0]);
+            if (choice != JOptionPane.CLOSED_OPTION) {
+                gameSettings.put(GameSettings.COMPUTER_PLAYER, choice == 1);
+            }
+        });
+        //Quit button
+        mainMenuPanel.getButton(3).addActionListener(e -> {
             dispose();
             System.exit(0);
         });
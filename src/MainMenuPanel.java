@@ -14,6 +14,7 @@ public class MainMenuPanel extends OptionPanel {
 
         addButton(new MenuButton("continue"));
         addButton(new MenuButton("new_game"));
+        addButton(new MenuButton("game_modes"));
         addButton(new MenuButton("quit"));
     }
 }
\ No newline at end of file
@@ -1,10 +1,14 @@
+import java.util.Arrays;
+
 /**
  * This class runs the program.
  * Creates a new instance of GameManager and calls its run() method.
+ * Run with --ai to play white against the computer.
  */
 public class MainText {
     public static void main(String[] args) {
-        GameManagerText gameManager = new GameManagerText();
+        boolean computerPlayer = Arrays.asList(args).contains("--ai");
+        GameManagerText gameManager = new GameManagerText(computerPlayer);
         gameManager.run();
     }
 }
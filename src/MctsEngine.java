@@ -0,0 +1,597 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computer player that picks moves by Monte Carlo tree search (UCT), as an alternative to Engine's alpha-beta search.
+ * <p>
+ * Each iteration goes down a tree of moves from the position, at each node choosing the move with the best upper
+ * confidence bound (UCB1) on its results, and adds a node where the tree ends. From there it plays a short game of
+ * random moves (a playout) and scores its end by the material on the board. The result is added to every node on the
+ * way back up. The move played is the root move that was visited the most.
+ * <p>
+ * The tree and the playouts use the rules of the game on a copy of the board: Board.makeMove and unmakeMove, which
+ * promote pawns, and Board.kingInCheck. A move onto an effect tile gets the effect. A random effect (a switch piece
+ * tile) makes the move a chance node, whose outcome is drawn each time it is visited, with a child for each outcome
+ * drawn, so random boards are sampled as they would be played.
+ * <p>
+ * With progressive widening, a node only considers its most promising moves at first, captures and promotions ordered
+ * as Engine orders them, and more of them as it is visited more. This keeps the search from spreading thin over the
+ * many moves of a 16x16 board.
+ * <p>
+ * Several threads search the same tree, each on its own board. A thread going down the tree counts its visit of each
+ * node at once, as VIRTUAL_LOSS lost games, so that the other threads try other moves until its result is added. The
+ * statistics of a node are guarded by the lock of its parent, and its children by its own lock.
+ * <p>
+ * The tree is kept after a search. If the next position is in the tree (the moves played since were searched), the
+ * next search starts from its node, with the playouts already made for it. An MctsEngine runs one search at a time.
+ */
+class MctsEngine {
+
+    private static final String[] COLORS = {"white", "black"}; //Indexed by BitBoard color.
+    private static final Piece.ChessPieceType[] TYPES = Piece.ChessPieceType.values();
+
+    private static final double EXPLORATION = 0.7; //UCB1 constant, for results from 0 (lost) to 1 (won).
+    private static final int VIRTUAL_LOSS = 3; //Lost games a visit counts as until its playout's result is added.
+    private static final int PLAYOUT_PLIES = 20; //Plies a playout plays before the material decides its result.
+    private static final int PLAYOUT_CAPTURE_PERCENT = 50; //How often a playout move is a capture, if there is one.
+    private static final double EVALUATION_SCALE = 400; //Centipawns ahead that make a result of 1 / (1 + e^-1).
+    private static final double MAX_RESULT = 0.999; //Results closer to 0 or 1 are reported with this score.
+
+    //With progressive widening, a node considers WIDENING_FACTOR * visits ^ WIDENING_EXPONENT of its moves.
+    private static final double WIDENING_FACTOR = 2;
+    private static final double WIDENING_EXPONENT = 0.5;
+
+    private static final int REUSE_LEVELS = 6; //How far down the tree the next search looks for its position.
+    private static final int DEFAULT_MAX_NODES = 1 << 21;
+
+    private static final int CAPTURE_PRIORITY = 1 << 20; //Move ordering, as in Engine.orderMoves.
+    private static final int PROMOTION_PRIORITY = 1 << 19;
+
+    private final int threads;
+    private final boolean progressiveWidening;
+    private final int maxNodes; //Beyond this many nodes, playouts start from where the tree ends without adding one.
+    private final long seed;
+    private final ExecutorService pool; //Runs the helper threads; the thread that calls search runs one more.
+
+    private final Worker[] workers;
+    private final AtomicBoolean stopSignal = new AtomicBoolean();
+    private final AtomicLong playouts = new AtomicLong();
+    private final AtomicInteger nodeCount = new AtomicInteger();
+
+    private Node root;
+    private int rootColor;
+    private long maxPlayouts;
+    private int maxTreeDepth;
+    private long deadline;
+
+    MctsEngine(int threads, boolean progressiveWidening) {
+        this(threads, progressiveWidening, GameRandom.newSeed(), DEFAULT_MAX_NODES);
+    }
+
+    /**
+     * @param seed     the playouts of a search are drawn from the seed and the position, so a one thread search with a
+     *                 playout limit always picks the same move in the same position (with the same tree kept).
+     * @param maxNodes the most nodes the tree grows to, which bounds the memory the engine uses.
+     */
+    MctsEngine(int threads, boolean progressiveWidening, long seed, int maxNodes) {
+        this.threads = Math.max(1, threads);
+        this.progressiveWidening = progressiveWidening;
+        this.seed = seed;
+        this.maxNodes = maxNodes;
+        pool = this.threads > 1 ? Executors.newFixedThreadPool(this.threads - 1, task -> {
+            Thread thread = new Thread(task, "MCTS");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+
+        workers = new Worker[this.threads];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker();
+        }
+    }
+
+    /**
+     * A move of the tree, or a position: the root, and the outcomes of a chance node.
+     */
+    private static final class Node {
+        final int move; //The move from the parent, or Move.NONE for the root and the outcomes of a chance node.
+        final int color; //BitBoard color of the side that made the move.
+        final long key; //Position once the move and its effect are made, with the side to move. 0 for chance nodes.
+        final int outcomes; //Number of outcomes of a chance node, or 0.
+
+        //Guarded by the parent's lock.
+        int visits; //Including the virtual losses of the playouts still going through the node.
+        double wins; //Sum of the results, for color.
+
+        //Guarded by this node's lock.
+        int[] moves; //Legal moves, most promising first; null until the node is expanded. Unused in chance nodes.
+        Node[] children; //Indexed like moves, or by outcome in a chance node.
+        int childVisits; //Visits of the children, so that of this node not counting the playouts that ended here.
+        boolean terminal; //No legal move: checkmate or stalemate.
+
+        Node(int move, int color, long key, int outcomes) {
+            this.move = move;
+            this.color = color;
+            this.key = key;
+            this.outcomes = outcomes;
+            if (outcomes > 0) {
+                children = new Node[outcomes];
+            }
+        }
+    }
+
+    /**
+     * Searches the position for the best move of the side to move. The GameState and its board are not changed.
+     * <p>
+     * The search stops after limits.maxNodes playouts or limits.maxTimeMillis, or once the tree is limits.maxDepth
+     * plies deep along some line (it grows deeper along the better moves only), and makes at least one playout on
+     * every thread.
+     *
+     * @return the most visited move. Its score is its average result, as centipawns; its depth, the deepest the tree
+     * was searched; and its nodes, the playouts made.
+     */
+    SearchResult search(GameState state, SearchLimits limits) {
+        long start = System.currentTimeMillis();
+        rootColor = BitBoard.colorIndex(state.getTurnColor());
+        reuseTree(state.getZobristKey());
+
+        maxPlayouts = limits.maxNodes == SearchLimits.UNLIMITED ? Long.MAX_VALUE : limits.maxNodes;
+        maxTreeDepth = limits.maxDepth == SearchLimits.UNLIMITED ? Integer.MAX_VALUE : limits.maxDepth;
+        deadline = limits.maxTimeMillis == SearchLimits.UNLIMITED ? Long.MAX_VALUE
+                : System.nanoTime() + limits.maxTimeMillis * 1_000_000L;
+        stopSignal.set(false);
+        playouts.set(0);
+
+        GameRandom random = new GameRandom(seed ^ state.getZobristKey());
+        for (Worker worker : workers) {
+            worker.prepare(state.getBoard(), random.split());
+        }
+        synchronized (root) {
+            if (root.moves == null) {
+                workers[0].expand(root, rootColor);
+            }
+            if (root.terminal) {
+                return bestMove(0, System.currentTimeMillis() - start);
+            }
+        }
+
+        List<Future<?>> helpers = new ArrayList<>();
+        for (int i = 1; i < workers.length; i++) {
+            helpers.add(pool.submit(workers[i]::run));
+        }
+        workers[0].run();
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (InterruptedException | ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+
+        int depth = 0;
+        for (Worker worker : workers) {
+            depth = Math.max(depth, worker.maxDepth);
+        }
+        return bestMove(depth, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Forgets the tree, so that the next search doesn't depend on the ones before.
+     */
+    void clearTree() {
+        root = null;
+    }
+
+    private SearchResult bestMove(int depth, long timeMillis) {
+        Node best = null;
+        synchronized (root) {
+            if (root.children != null) {
+                for (Node child : root.children) {
+                    if (child != null && (best == null || child.visits > best.visits
+                            || (child.visits == best.visits && child.wins > best.wins))) {
+                        best = child;
+                    }
+                }
+            }
+        }
+        if (best == null) {
+            //Checkmate or stalemate.
+            int score = workers[0].board.kingInCheck(COLORS[rootColor]) ? -Engine.MATE : 0;
+            return new SearchResult(Move.NONE, score, 0, playouts.get(), timeMillis);
+        }
+
+        double result = Math.max(1 - MAX_RESULT, Math.min(MAX_RESULT, best.wins / best.visits));
+        int score = (int) Math.round(EVALUATION_SCALE * Math.log(result / (1 - result)));
+        return new SearchResult(best.move, score, depth, playouts.get(), timeMillis);
+    }
+
+    /**
+     * Makes the root the node of the position with the given key if the tree has it near its root, and a new node
+     * otherwise.
+     */
+    private void reuseTree(long key) {
+        Node found = null;
+        List<Node> level = new ArrayList<>();
+        if (root != null) {
+            level.add(root);
+        }
+        for (int i = 0; i <= REUSE_LEVELS && found == null && !level.isEmpty(); i++) {
+            List<Node> next = new ArrayList<>();
+            for (Node node : level) {
+                if (node.outcomes == 0 && node.key == key) {
+                    found = node;
+                    break;
+                }
+                if (node.children != null) {
+                    for (Node child : node.children) {
+                        if (child != null) {
+                            next.add(child);
+                        }
+                    }
+                }
+            }
+            level = next;
+        }
+
+        root = found != null ? found : new Node(Move.NONE, 1 - rootColor, key, 0);
+        nodeCount.set(countNodes(root));
+    }
+
+    private static int countNodes(Node root) {
+        int count = 0;
+        ArrayDeque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            count++;
+            if (node.children != null) {
+                for (Node child : node.children) {
+                    if (child != null) {
+                        stack.push(child);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Runs the iterations of one thread on its own copy of the board.
+     */
+    private final class Worker {
+        private Board board;
+        private GameRandom random;
+        private final MoveList moves = new MoveList();
+        private final ArrayList<Node> path = new ArrayList<>();
+        private int madeMoves; //Moves made on the board since the root, to unmake after the iteration.
+        private int maxDepth;
+
+        /**
+         * Copies the board of the position. Called from the thread that owns it.
+         */
+        void prepare(Board rootBoard, GameRandom random) {
+            board = new Board(rootBoard);
+            this.random = random;
+            maxDepth = 0;
+        }
+
+        void run() {
+            do {
+                iterate();
+                if (playouts.incrementAndGet() >= maxPlayouts || System.nanoTime() >= deadline
+                        || maxDepth >= maxTreeDepth) {
+                    stopSignal.set(true);
+                }
+            } while (!stopSignal.get());
+        }
+
+        /**
+         * Goes down the tree to where it ends, plays out the position there and adds the result to the nodes on the
+         * way.
+         */
+        private void iterate() {
+            path.clear();
+            Node node = root;
+            int color = rootColor;
+            path.add(node);
+
+            boolean terminal = false;
+            while (true) {
+                Node child;
+                boolean added;
+                synchronized (node) {
+                    if (node.moves == null) {
+                        expand(node, color);
+                    }
+                    if (node.terminal) {
+                        child = null;
+                        added = false;
+                    } else {
+                        int index = selectMove(node);
+                        child = node.children[index];
+                        added = child == null;
+                        if (added && nodeCount.get() >= maxNodes) {
+                            child = null; //The tree is full; the playout starts here.
+                        } else {
+                            int outcomes = makeMove(node.moves[index]);
+                            if (added) {
+                                child = new Node(node.moves[index], color,
+                                        outcomes > 1 ? 0 : positionKey(1 - color), outcomes > 1 ? outcomes : 0);
+                                node.children[index] = child;
+                                nodeCount.incrementAndGet();
+                            }
+                            child.visits += VIRTUAL_LOSS;
+                            node.childVisits++;
+                        }
+                    }
+                }
+                if (child == null) {
+                    terminal = node.terminal;
+                    break;
+                }
+                path.add(child);
+                color = 1 - color;
+
+                if (child.outcomes > 0) {
+                    //A chance node: the outcome is drawn, and its position is the next node.
+                    Node chance = child;
+                    synchronized (chance) {
+                        int outcome = random.nextInt(chance.outcomes);
+                        applyOutcome(chance.move, outcome);
+                        child = chance.children[outcome];
+                        if (child == null && nodeCount.get() < maxNodes) {
+                            added = true;
+                            child = new Node(Move.NONE, chance.color, positionKey(color), 0);
+                            chance.children[outcome] = child;
+                            nodeCount.incrementAndGet();
+                        }
+                        if (child != null) {
+                            child.visits += VIRTUAL_LOSS;
+                            chance.childVisits++;
+                        }
+                    }
+                    if (child == null) {
+                        break; //The tree is full; the playout starts from the outcome.
+                    }
+                    path.add(child);
+                }
+
+                node = child;
+                if (added) {
+                    break;
+                }
+            }
+
+            maxDepth = Math.max(maxDepth, madeMoves);
+            double result = terminal ? terminalResult(color) : playout(color); //For white.
+            while (madeMoves > 0) {
+                board.unmakeMove();
+                madeMoves--;
+            }
+            backUp(result);
+        }
+
+        /**
+         * Adds the result to the nodes of the path, taking back their virtual losses.
+         */
+        private void backUp(double result) {
+            for (int i = path.size() - 1; i > 0; i--) {
+                Node node = path.get(i);
+                synchronized (path.get(i - 1)) {
+                    node.visits += 1 - VIRTUAL_LOSS;
+                    node.wins += node.color == BitBoard.WHITE ? result : 1 - result;
+                }
+            }
+        }
+
+        /**
+         * Finds the legal moves of the node's position, the board, and orders them from the most promising.
+         */
+        private void expand(Node node, int color) {
+            moves.clear();
+            board.generateMoves(color, moves);
+            int[] legal = new int[moves.size()];
+            int[] priorities = new int[moves.size()];
+            int count = 0;
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                board.makeMove(move);
+                boolean isLegal = !board.kingInCheck(COLORS[color]);
+                board.unmakeMove();
+                if (!isLegal) {
+                    continue;
+                }
+
+                //Insertion sort, by priority.
+                int priority = priority(move);
+                int j = count++;
+                while (j > 0 && priorities[j - 1] < priority) {
+                    legal[j] = legal[j - 1];
+                    priorities[j] = priorities[j - 1];
+                    j--;
+                }
+                legal[j] = move;
+                priorities[j] = priority;
+            }
+
+            node.moves = count == legal.length ? legal : Arrays.copyOf(legal, count);
+            node.children = new Node[count];
+            node.terminal = count == 0;
+        }
+
+        private int priority(int move) {
+            int priority = 0;
+            if (Move.is(move, Move.CAPTURE)) {
+                priority += CAPTURE_PRIORITY + 16 * valueAt(Move.to(move)) - valueAt(Move.from(move));
+            }
+            if (Move.is(move, Move.PROMOTION)) {
+                priority += PROMOTION_PRIORITY;
+            }
+            return priority;
+        }
+
+        /**
+         * @return the index of the move to visit: the first one considered that has no node yet, or else the one with
+         * the best upper confidence bound.
+         */
+        private int selectMove(Node node) {
+            int considered = node.moves.length;
+            if (progressiveWidening) {
+                int widened = (int) (WIDENING_FACTOR * Math.pow(node.childVisits, WIDENING_EXPONENT));
+                considered = Math.max(1, Math.min(considered, widened));
+            }
+
+            int best = 0;
+            double bestBound = Double.NEGATIVE_INFINITY;
+            double logVisits = Math.log(Math.max(1, node.childVisits));
+            for (int i = 0; i < considered; i++) {
+                Node child = node.children[i];
+                if (child == null) {
+                    return i;
+                }
+                double bound = child.wins / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                if (bound > bestBound) {
+                    bestBound = bound;
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Plays random legal moves from the position on the board, color to move, for up to PLAYOUT_PLIES plies.
+         *
+         * @return the result for white: 1 for a win, 0 for a loss, and in between by the material once the playout
+         * ends without checkmate.
+         */
+        private double playout(int color) {
+            for (int ply = 0; ply < PLAYOUT_PLIES; ply++) {
+                moves.clear();
+                board.generateMoves(color, moves);
+
+                boolean moved = false;
+                if (random.nextInt(100) < PLAYOUT_CAPTURE_PERCENT) {
+                    int captures = 0;
+                    for (int i = 0; i < moves.size(); i++) {
+                        int move = moves.get(i);
+                        if (Move.is(move, Move.CAPTURE)) {
+                            moves.set(i, moves.get(captures));
+                            moves.set(captures++, move);
+                        }
+                    }
+                    moved = makeRandomMove(color, captures);
+                }
+                if (!moved && !makeRandomMove(color, moves.size())) {
+                    return terminalResult(color);
+                }
+                color = 1 - color;
+            }
+            return evaluate();
+        }
+
+        /**
+         * Makes a random legal move among the first count moves of the list, drawing the outcome of its effect.
+         *
+         * @return false if none of them is legal.
+         */
+        private boolean makeRandomMove(int color, int count) {
+            while (count > 0) {
+                int index = random.nextInt(count);
+                int move = moves.get(index);
+                board.makeMove(move);
+                if (!board.kingInCheck(COLORS[color])) {
+                    madeMoves++;
+                    int outcomes = landOnEffect(move);
+                    if (outcomes > 1) {
+                        applyOutcome(move, random.nextInt(outcomes));
+                    }
+                    return true;
+                }
+                board.unmakeMove();
+                moves.set(index, moves.get(--count));
+                moves.set(count, move);
+            }
+            return false;
+        }
+
+        /**
+         * Makes a legal move, and the effect it lands on unless that has several outcomes.
+         *
+         * @return the number of outcomes of the effect if it has several, for the caller to draw, or else 0.
+         */
+        private int makeMove(int move) {
+            board.makeMove(move);
+            madeMoves++;
+            return landOnEffect(move);
+        }
+
+        private int landOnEffect(int move) {
+            if (!Move.is(move, Move.EFFECT)) {
+                return 0;
+            }
+            Position to = Move.toPosition(move);
+            Effect effect = board.getSpace(to).getEffect(); //A promoted pawn's new space has none.
+            if (effect == null) {
+                return 0;
+            }
+            int outcomes = effect.getOutcomeCount(board, to);
+            if (outcomes > 1) {
+                return outcomes;
+            }
+            effect.apply(board, to, 0);
+            return 0;
+        }
+
+        private void applyOutcome(int move, int outcome) {
+            Position to = Move.toPosition(move);
+            board.getSpace(to).getEffect().apply(board, to, outcome);
+        }
+
+        /**
+         * @return the result for white of a position where color has no legal move.
+         */
+        private double terminalResult(int color) {
+            if (!board.kingInCheck(COLORS[color])) {
+                return 0.5;
+            }
+            return color == BitBoard.WHITE ? 0 : 1;
+        }
+
+        /**
+         * @return the result for white of the material balance on the board.
+         */
+        private double evaluate() {
+            BitBoard core = board.getBitBoard();
+            long[] white = core.getColor(BitBoard.WHITE);
+            long[] black = core.getColor(BitBoard.BLACK);
+            int score = 0;
+            for (Piece.ChessPieceType type : TYPES) {
+                long[] typeMask = core.getType(type);
+                for (int word = 0; word < BitBoard.WORDS; word++) {
+                    int balance = Long.bitCount(typeMask[word] & white[word])
+                            - Long.bitCount(typeMask[word] & black[word]);
+                    score += balance * Engine.PIECE_VALUES[type.ordinal()];
+                }
+            }
+            return 1 / (1 + Math.exp(-score / EVALUATION_SCALE));
+        }
+
+        private long positionKey(int colorToMove) {
+            return board.getZobristKey() ^ Zobrist.turn(COLORS[colorToMove]);
+        }
+
+        private int valueAt(int square) {
+            Piece piece = board.getSpace(BitBoard.row(square), BitBoard.col(square)).getPiece();
+            return piece != null ? Engine.PIECE_VALUES[piece.getType().ordinal()] : 0;
+        }
+    }
+}
@@ -5,13 +5,15 @@ class MenuButton extends JButton {
     MenuButton(String title) {
         super();
 
-        ImageIcon icon = new ImageIcon("assets/" + title + "_button.png");
+        ImageManager imageManager = ImageManager.getInstance();
+
+        ImageIcon icon = imageManager.getImage(title + "_button");
         setIcon(icon);
         setContentAreaFilled(false);
         setBorderPainted(false);
         setFocusPainted(false);
 
-        ImageIcon pressedIcon = new ImageIcon("assets/" + title + "_button_push.png");
+        ImageIcon pressedIcon = imageManager.getImage(title + "_button_push");
         setPressedIcon(pressedIcon);
 
         addActionListener(e -> AudioManager.getInstance().playClick());
@@ -0,0 +1,66 @@
+/**
+ * Moves are packed into a single int, so that they can be generated and stored without allocating any objects.
+ * <p>
+ * Bits 0-7 hold the square the piece moves from, bits 8-15 the square it moves to, and the remaining bits hold flags
+ * describing the move. Squares are BitBoard square indexes (row * 16 + col).
+ */
+final class Move {
+
+    static final int CAPTURE = 1; //The move takes a piece.
+    static final int PROMOTION = 1 << 1; //The move turns a pawn into a queen (see Board.pawnToQueen).
+    static final int EFFECT = 1 << 2; //The move lands on a space with an Effect.
+
+    static final int NONE = 0; //Never a valid move, since a piece can't move to the square it is on.
+
+    private static final int FLAGS_SHIFT = 16;
+
+    private Move() {
+    }
+
+    static int of(int from, int to, int flags) {
+        return from | (to << 8) | (flags << FLAGS_SHIFT);
+    }
+
+    static int from(int move) {
+        return move & 0xFF;
+    }
+
+    static int to(int move) {
+        return (move >>> 8) & 0xFF;
+    }
+
+    static int flags(int move) {
+        return move >>> FLAGS_SHIFT;
+    }
+
+    static boolean is(int move, int flag) {
+        return (flags(move) & flag) != 0;
+    }
+
+    static Position fromPosition(int move) {
+        return new Position(BitBoard.row(from(move)), BitBoard.col(from(move)));
+    }
+
+    static Position toPosition(int move) {
+        return new Position(BitBoard.row(to(move)), BitBoard.col(to(move)));
+    }
+
+    /**
+     * @return the move in standard chess coordinates, for example "E2,E4" (the same format the text game reads).
+     */
+    static String toString(int move) {
+        return Position.parsePosition(fromPosition(move)) + "," + Position.parsePosition(toPosition(move));
+    }
+
+    /**
+     * @return the move in chess coordinates for a board with the given number of rows, where rank 1 is the last row.
+     * Same as toString(int) on an 8x8 board.
+     */
+    static String toString(int move, int rows) {
+        return square(from(move), rows) + "," + square(to(move), rows);
+    }
+
+    private static String square(int square, int rows) {
+        return (char) ('A' + BitBoard.col(square)) + "" + (rows - BitBoard.row(square));
+    }
+}
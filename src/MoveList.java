@@ -0,0 +1,79 @@
+import java.util.Arrays;
+
+/**
+ * A reusable buffer of packed moves (see Move).
+ * Move generators append to it instead of returning a new collection, so the same MoveList can be cleared and reused
+ * for every piece on every turn without creating garbage.
+ */
+class MoveList {
+
+    private int[] moves;
+    private int size;
+
+    //Scratch mask used by the move generators, so they don't need to allocate one per call.
+    final long[] targets = new long[BitBoard.WORDS];
+
+    MoveList() {
+        this(64);
+    }
+
+    MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    int get(int index) {
+        return moves[index];
+    }
+
+    void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * Shrinks the list back to the given size, dropping every move added after it.
+     * Lets several generators share one list as a stack.
+     */
+    void truncate(int size) {
+        this.size = size;
+    }
+
+    boolean contains(int from, int to) {
+        for (int i = 0; i < size; i++) {
+            if (Move.from(moves[i]) == from && Move.to(moves[i]) == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(Move.toString(moves[i]));
+        }
+        return sb.append("]").toString();
+    }
+}
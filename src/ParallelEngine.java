@@ -0,0 +1,193 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computer player that searches with several threads, each running an Engine on its own copy of the board. All the
+ * Engines share one TranspositionTable, so what one thread learns about a position the others don't search again.
+ * <p>
+ * Two modes are supported:
+ * <ul>
+ * <li>LAZY_SMP: every thread searches the whole position. The helper threads start at alternating depths so that
+ * they get ahead of the main thread and fill the table for it. The main thread's result is used.</li>
+ * <li>ROOT_SPLIT: each iteration searches the best move so far on the calling thread, then splits the other root
+ * moves between the threads of a ForkJoinPool, each searched against the best score found so far.</li>
+ * </ul>
+ * With one thread both modes are the same as a single Engine. A ParallelEngine runs one search at a time.
+ */
+class ParallelEngine {
+
+    enum Mode {
+        LAZY_SMP, ROOT_SPLIT
+    }
+
+    private static final int DEFAULT_TABLE_MEGABYTES = 32;
+
+    private final int threads;
+    private final Mode mode;
+    private final ForkJoinPool pool;
+    private final TranspositionTable table;
+    private final AtomicBoolean stopSignal = new AtomicBoolean();
+    private final AtomicLong sharedNodes = new AtomicLong();
+
+    private final Engine[] engines;
+    private final ConcurrentLinkedQueue<Engine> idleEngines = new ConcurrentLinkedQueue<>(); //Used by ROOT_SPLIT.
+
+    //Best root move of the current ROOT_SPLIT iteration, guarded by this.
+    private int iterationBest;
+    private int iterationScore;
+
+    ParallelEngine(int threads, Mode mode) {
+        this(threads, mode, DEFAULT_TABLE_MEGABYTES);
+    }
+
+    /**
+     * @param tableMegabytes the size of the TranspositionTable shared by the threads.
+     */
+    ParallelEngine(int threads, Mode mode, int tableMegabytes) {
+        this.threads = Math.max(1, threads);
+        this.mode = mode;
+        pool = new ForkJoinPool(this.threads);
+        table = new TranspositionTable(tableMegabytes);
+
+        engines = new Engine[this.threads];
+        for (int i = 0; i < engines.length; i++) {
+            engines[i] = new Engine(table, stopSignal, sharedNodes);
+        }
+    }
+
+    /**
+     * Searches the position for the best move of the side to move. The GameState and its board are not changed.
+     */
+    SearchResult search(GameState state, SearchLimits limits) {
+        table.newSearch();
+        stopSignal.set(false);
+        sharedNodes.set(0);
+        for (Engine engine : engines) {
+            engine.prepare(state, limits);
+        }
+
+        if (threads == 1) {
+            return engines[0].iterate(1);
+        }
+        return mode == Mode.LAZY_SMP ? lazySmp() : rootSplit();
+    }
+
+    private SearchResult lazySmp() {
+        List<Future<SearchResult>> helpers = new ArrayList<>();
+        for (int i = 1; i < engines.length; i++) {
+            Engine helper = engines[i];
+            int startDepth = 1 + (i & 1);
+            helpers.add(pool.submit(() -> helper.iterate(startDepth, false)));
+        }
+
+        SearchResult result = engines[0].iterate(1);
+        stopSignal.set(true); //The helpers' searches are always limited, so they stop now.
+
+        long nodes = result.nodes;
+        for (Future<SearchResult> helper : helpers) {
+            try {
+                nodes += helper.get().nodes;
+            } catch (InterruptedException | ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+        return new SearchResult(result.move, result.score, result.depth, nodes, result.timeMillis);
+    }
+
+    private SearchResult rootSplit() {
+        long start = System.currentTimeMillis();
+        Engine main = engines[0];
+        MoveList rootMoves = main.rootMoves();
+        if (rootMoves.isEmpty()) {
+            return main.iterate(1); //Checkmate or stalemate.
+        }
+
+        //The calling thread waits while the other moves are searched, so the main Engine is idle then too.
+        idleEngines.clear();
+        Collections.addAll(idleEngines, engines);
+
+        int bestMove = rootMoves.get(0);
+        int bestScore = 0;
+        int completedDepth = 0;
+
+        for (int depth = 1; depth <= main.getMaxDepth(); depth++) {
+            boolean limited = depth > 1;
+            for (Engine engine : engines) {
+                engine.setLimited(limited);
+            }
+
+            //The best move so far is searched alone first, so the other moves have a bound to be searched against.
+            main.orderRootMoves(rootMoves, bestMove);
+            int firstMove = rootMoves.get(0);
+            int firstScore = main.searchRootMove(firstMove, depth, -Engine.MATE - 1, Engine.MATE + 1);
+            if (main.isStopped()) {
+                break;
+            }
+            iterationBest = firstMove;
+            iterationScore = firstScore;
+
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 1; i < rootMoves.size(); i++) {
+                int move = rootMoves.get(i);
+                int iterationDepth = depth;
+                tasks.add(() -> {
+                    searchSplitMove(move, iterationDepth);
+                    return null;
+                });
+            }
+            pool.invokeAll(tasks);
+
+            bestMove = iterationBest;
+            bestScore = iterationScore;
+            if (stopSignal.get()) {
+                break; //Moves that did finish were searched against a complete first move, so their best can be used.
+            }
+            completedDepth = depth;
+
+            if (Math.abs(bestScore) >= Engine.MATE - Engine.MAX_PLY) {
+                break;
+            }
+        }
+
+        return new SearchResult(bestMove, bestScore, completedDepth, totalNodes(), System.currentTimeMillis() - start);
+    }
+
+    private void searchSplitMove(int move, int depth) {
+        Engine engine = idleEngines.poll(); //There is an idle Engine for each pool thread.
+        try {
+            int alpha;
+            synchronized (this) {
+                alpha = iterationScore;
+            }
+            int score = engine.searchRootMove(move, depth, alpha, Engine.MATE + 1);
+            if (engine.isStopped()) {
+                stopSignal.set(true);
+                return;
+            }
+            synchronized (this) {
+                if (score > iterationScore) {
+                    iterationScore = score;
+                    iterationBest = move;
+                }
+            }
+        } finally {
+            idleEngines.add(engine);
+        }
+    }
+
+    private long totalNodes() {
+        long nodes = 0;
+        for (Engine engine : engines) {
+            nodes += engine.getNodes();
+        }
+        return nodes;
+    }
+}
@@ -1,5 +1,3 @@
-import java.util.HashSet;
-
 public class Pawn extends Piece {
 
     private String color;
@@ -14,64 +12,67 @@ public class Pawn extends Piece {
     }
 
     @Override
-    public HashSet<Position> getAvailableMoves(Board board, int row, int col) {
-        HashSet<Position> availablePositions = new HashSet<>();
-        Position position;
-        int direction; //Up = -1. Down = 1.
-
-        if (color.equals("black")) {
-            direction = 1;
-        } else {
-            direction = -1;
+    void generateMoves(Board board, int row, int col, MoveList moves) {
+        BitBoard core = board.getBitBoard();
+        int square = BitBoard.square(row, col);
+        int colorIndex = BitBoard.colorIndex(color);
+        int direction = BitBoard.pawnDirection(colorIndex); //Up = -1. Down = 1.
+
+        //Diagonal captures
+        core.pawnAttacks(square, colorIndex, moves.targets);
+        long[] enemies = core.getColor(1 - colorIndex);
+        for (int i = 0; i < BitBoard.WORDS; i++) {
+            moves.targets[i] &= enemies[i];
+        }
+        for (int word = 0; word < BitBoard.WORDS; word++) {
+            long bits = moves.targets[word];
+            while (bits != 0) {
+                addMove(core, square, (word << 6) | Long.numberOfTrailingZeros(bits), colorIndex, moves);
+                bits &= bits - 1;
+            }
         }
 
-        position = new Position(row + direction, col);
-        if (board.getSpace(position) != null) {
-            if (legalMove(board, position) && board.getSpace(position).getPiece() == null) {
-                availablePositions.add(position);
+        int forward = squareAt(row + direction, col);
+        if (forward >= 0 && core.exists(forward)) {
+            if (!core.isOccupied(forward)) {
+                addMove(core, square, forward, colorIndex, moves);
             }
         } else {
+            //If there is no space in front of the pawn, it can step to the side instead.
             for (int i = -1; i <= 1; i += 2) {
-                position = new Position(row, col + i);
-                if (legalMove(board, position) && board.getSpace(position).getPiece() == null) {
-                    availablePositions.add(position);
-                }
-            }
-
-        }
-
-
-        for (int i = -1; i <= 1; i += 2) {
-            position = new Position(row + direction, col + i);
-            if (legalMove(board, position) && board.getSpace(position).getPiece() != null) {
-                if (!board.getSpace(position).getPiece().getColor().equals(color)) {
-                    availablePositions.add(position);
+                int side = squareAt(row, col + i);
+                if (side >= 0 && core.isEmptySpace(side)) {
+                    addMove(core, square, side, colorIndex, moves);
                 }
             }
         }
 
         if (moveCount == 0) {
-            position = new Position(row + (direction * 2), col);
-            if (legalMove(board, position) && board.getSpace(position).getPiece() == null) {
-                if (board.getSpace(position.row - direction, position.col).getPiece() == null)
-                    availablePositions.add(position);
+            int doubleStep = squareAt(row + (direction * 2), col);
+            if (doubleStep >= 0 && core.isEmptySpace(doubleStep) && core.isEmptySpace(forward)) {
+                addMove(core, square, doubleStep, colorIndex, moves);
             }
         }
-    /*
-        if(legalMove(board, position) && board.getSpace(position).getPiece()==null){
-            if(board.getSpace(position.row,position.col+1).getPiece()!=null ||
-               board.getSpace(position.row,position.col-1).getPiece()!= null)
-                availablePositions.add(position);
+    }
+
+    /**
+     * @return the square index of the given row and col, or -1 if it is outside of the largest possible board.
+     */
+    private static int squareAt(int row, int col) {
+        if (row < 0 || row >= BitBoard.STRIDE || col < 0 || col >= BitBoard.STRIDE) {
+            return -1;
         }
-    */
+        return BitBoard.square(row, col);
+    }
 
-        return availablePositions;
+    private static void addMove(BitBoard core, int from, int to, int colorIndex, MoveList moves) {
+        core.addMove(from, to, core.isPromotionSquare(to, colorIndex) ? Move.PROMOTION : 0, moves);
     }
 
     @Override
     Status move(Board board, Position pBefore, Position pAfter) {
 
-        boolean legalMove = getAvailableMoves(board, pBefore).contains(pAfter);
+        boolean legalMove = canMoveTo(board, pBefore, pAfter);
         Status status = super.move(board, pBefore, pAfter);
 
         if (legalMove) {
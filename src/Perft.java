@@ -0,0 +1,253 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft: counts the move sequences of a given length from a position, with the rules of the game (Piece.generateMoves
+ * and the king check of GameState). The counts are a regression test for move generation: any change to the rules
+ * code must give the same numbers. The time they take is a throughput benchmark in nodes per second.
+ * <p>
+ * With effects on, a move landing on an effect tile applies the effect (see Effect.apply) and every possible outcome
+ * of a random effect is counted as its own branch. Subtrees of SPLIT_DEPTH or more plies are split between the threads
+ * of a ForkJoinPool, each working on its own copy of the board.
+ * <p>
+ * Usage: java Perft [--layout standard|random] [--seed n] [--depth n] [--effects on|off] [--threads n] [--divide]
+ * [--expect n]
+ */
+class Perft {
+
+    private static final String[] COLORS = {"white", "black"}; //Indexed by BitBoard color.
+
+    private static final int SPLIT_DEPTH = 3; //Shallower subtrees aren't worth a task.
+
+    private final boolean effects;
+    private final ForkJoinPool pool;
+
+    Perft(boolean effects, int threads) {
+        this.effects = effects;
+        pool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    /**
+     * @return the number of move sequences of depth moves from the position. The board is not changed.
+     */
+    long count(Board board, String turnColor, int depth) {
+        return pool.invoke(new PerftTask(new Board(board), BitBoard.colorIndex(turnColor), depth));
+    }
+
+    /**
+     * Prints the count below every legal move (and outcome) of the side to move, then the total.
+     *
+     * @return the total.
+     */
+    long divide(Board board, String turnColor, int depth) {
+        if (depth < 1) {
+            return count(board, turnColor, depth);
+        }
+        ArrayList<String> labels = new ArrayList<>();
+        List<PerftTask> tasks = children(new Board(board), BitBoard.colorIndex(turnColor), depth, labels);
+        for (PerftTask task : tasks) {
+            pool.execute(task);
+        }
+
+        long total = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            long nodes = tasks.get(i).join();
+            System.out.println(labels.get(i) + ": " + nodes);
+            total += nodes;
+        }
+        System.out.println("Moves: " + tasks.size());
+        return total;
+    }
+
+    /**
+     * Makes a task for the subtree below every legal move (and outcome) of the position.
+     *
+     * @param labels if not null, gets the name of each task's move.
+     */
+    private ArrayList<PerftTask> children(Board board, int color, int depth, ArrayList<String> labels) {
+        ArrayList<PerftTask> tasks = new ArrayList<>();
+        MoveList moves = new MoveList();
+        board.generateMoves(color, moves);
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(move);
+            if (board.kingInCheck(COLORS[color])) {
+                board.unmakeMove();
+                continue;
+            }
+
+            int outcomes = getOutcomeCount(board, move);
+            for (int outcome = 0; outcome < outcomes; outcome++) {
+                if (outcome > 0) {
+                    board.makeMove(move);
+                }
+                applyEffect(board, move, outcome);
+                tasks.add(new PerftTask(new Board(board), 1 - color, depth - 1));
+                if (labels != null) {
+                    String label = Move.toString(move, board.getRows());
+                    labels.add(outcomes > 1 ? label + " (outcome " + (outcome + 1) + "/" + outcomes + ")" : label);
+                }
+                board.unmakeMove();
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Counts the subtree with make/unmake on one board.
+     */
+    private long count(Board board, int color, int depth, MoveList[] moveLists) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        MoveList moves = moveLists[depth];
+        moves.clear();
+        board.generateMoves(color, moves);
+
+        String colorName = COLORS[color];
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            board.makeMove(move);
+            if (board.kingInCheck(colorName)) {
+                board.unmakeMove();
+                continue;
+            }
+
+            int outcomes = getOutcomeCount(board, move);
+            if (depth == 1) {
+                nodes += outcomes;
+                board.unmakeMove();
+                continue;
+            }
+            for (int outcome = 0; outcome < outcomes; outcome++) {
+                if (outcome > 0) {
+                    board.makeMove(move);
+                }
+                applyEffect(board, move, outcome);
+                nodes += count(board, 1 - color, depth - 1, moveLists);
+                board.unmakeMove();
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the number of outcomes of the effect the move (already made) landed on, 1 if there is none.
+     */
+    private int getOutcomeCount(Board board, int move) {
+        Effect effect = getEffect(board, move);
+        return effect != null ? effect.getOutcomeCount(board, Move.toPosition(move)) : 1;
+    }
+
+    private void applyEffect(Board board, int move, int outcome) {
+        Effect effect = getEffect(board, move);
+        if (effect != null) {
+            effect.apply(board, Move.toPosition(move), outcome);
+        }
+    }
+
+    private Effect getEffect(Board board, int move) {
+        if (!effects || !Move.is(move, Move.EFFECT)) {
+            return null;
+        }
+        //A promoted pawn gets a new space, without the effect (see Board.pawnToQueen).
+        return board.getSpace(BitBoard.row(Move.to(move)), BitBoard.col(Move.to(move))).getEffect();
+    }
+
+    private class PerftTask extends RecursiveTask<Long> {
+        private final Board board;
+        private final int color;
+        private final int depth;
+
+        PerftTask(Board board, int color, int depth) {
+            this.board = board;
+            this.color = color;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth < SPLIT_DEPTH) {
+                MoveList[] moveLists = new MoveList[depth + 1];
+                for (int i = 0; i <= depth; i++) {
+                    moveLists[i] = new MoveList();
+                }
+                return count(board, color, depth, moveLists);
+            }
+
+            long nodes = 0;
+            for (PerftTask task : invokeAll(children(board, color, depth, null))) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+
+    public static void main(String[] args) {
+        String layout = "standard";
+        long seed = 42;
+        int depth = 4;
+        boolean effects = true;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean divide = false;
+        long expected = -1;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--layout":
+                    layout = args[++i];
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--depth":
+                    depth = Integer.parseInt(args[++i]);
+                    break;
+                case "--effects":
+                    effects = args[++i].equals("on");
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--divide":
+                    divide = true;
+                    break;
+                case "--expect":
+                    expected = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    System.out.println("Unknown option " + args[i]);
+                    return;
+            }
+        }
+
+        Board board;
+        if (layout.equals("random")) {
+            board = new Board(true, seed);
+            PieceLayout.randomChess(board);
+        } else {
+            board = new Board();
+            PieceLayout.standardChess(board);
+        }
+
+        System.out.println("Perft " + layout + (layout.equals("random") ? " seed " + seed : "") + ", depth " + depth
+                + ", effects " + (effects ? "on" : "off") + ", " + threads + " threads");
+        Perft perft = new Perft(effects, threads);
+        long start = System.nanoTime();
+        long nodes = divide ? perft.divide(board, "white", depth) : perft.count(board, "white", depth);
+        long elapsed = Math.max(1, System.nanoTime() - start);
+
+        System.out.println("Nodes: " + nodes);
+        System.out.printf("Time: %.3fs, %.0f nodes/s%n", elapsed / 1e9, nodes * 1e9 / elapsed);
+
+        if (expected >= 0 && nodes != expected) {
+            System.out.println("Expected " + expected + " nodes.");
+            System.exit(1);
+        }
+    }
+}
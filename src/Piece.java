@@ -1,5 +1,6 @@
 import java.io.Serializable;
 import java.util.HashSet;
+import java.util.Objects;
 
 /**
  * All chess pieces implement this interface.
@@ -17,78 +18,60 @@ public abstract class Piece implements Serializable {
 
     /**
      * Returns the set of all possible, legal Positions that a piece at the given row and col can go to.
+     * Convenience adapter over generateMoves; prefer generateMoves with a reused MoveList in loops.
      *
      * @param row row of the piece in the instance of Board
      * @param col column of the piece in the instance of Board
      * @return set of Positions that the piece is able to move to
      */
-    public abstract HashSet<Position> getAvailableMoves(Board board, int row, int col);
+    public HashSet<Position> getAvailableMoves(Board board, int row, int col) {
+        MoveList moves = new MoveList();
+        generateMoves(board, row, col, moves);
 
-    HashSet<Position> getAvailableMoves(Board board, Position position) {
-        return getAvailableMoves(board, position.row, position.col);
-    }
-
-    HashSet<Position> getAvailableDiagonalMoves(Board board, int row, int col) {
         HashSet<Position> availablePositions = new HashSet<>();
-
-        probeByDirectionVector(board, row, col, new Position(1, 1), availablePositions);
-
-        probeByDirectionVector(board, row, col, new Position(-1, 1), availablePositions);
-
-        probeByDirectionVector(board, row, col, new Position(1, -1), availablePositions);
-
-        probeByDirectionVector(board, row, col, new Position(-1, -1), availablePositions);
-
+        for (int i = 0; i < moves.size(); i++) {
+            availablePositions.add(Move.toPosition(moves.get(i)));
+        }
         return availablePositions;
     }
 
-    HashSet<Position> getAvailableHorizontalVerticalMoves(Board board, int row, int col) {
-        HashSet<Position> availablePositions = new HashSet<>();
-
-        probeByDirectionVector(board, row, col, Position.i, availablePositions);
-
-        probeByDirectionVector(board, row, col, Position.i.scalarMult(-1), availablePositions);
-
-        probeByDirectionVector(board, row, col, Position.j, availablePositions);
+    HashSet<Position> getAvailableMoves(Board board, Position position) {
+        return getAvailableMoves(board, position.row, position.col);
+    }
 
-        probeByDirectionVector(board, row, col, Position.j.scalarMult(-1), availablePositions);
+    /**
+     * Appends every possible move of a piece at the given row and col to the list, as packed moves (see Move).
+     * Does not allocate; the list (and its scratch mask) is reused.
+     *
+     * @param row   row of the piece in the instance of Board
+     * @param col   column of the piece in the instance of Board
+     * @param moves list to append the moves to
+     */
+    abstract void generateMoves(Board board, int row, int col, MoveList moves);
 
-        return availablePositions;
+    void generateSlidingMoves(Board board, int row, int col, boolean orthogonal, boolean diagonal, MoveList moves) {
+        int square = BitBoard.square(row, col);
+        board.getBitBoard().slidingAttacks(square, orthogonal, diagonal, moves.targets);
+        addTargets(board, square, moves);
     }
 
     /**
-     * Uses a 2x1 direction vector (an instance of Position class) and probes in that direction by scaling in that
-     * direction by scalar multiples of the vector.
+     * Appends a move to every square in moves.targets, except the squares that are occupied by a piece of the same
+     * color.
      */
-    private void probeByDirectionVector(Board board, int row, int col, Position directionVector, HashSet<Position> availablePositions) {
-        probeByDirectionVector(board, row, col, directionVector, availablePositions, board.getRows(), board.getCols());
+    void addTargets(Board board, int square, MoveList moves) {
+        BitBoard core = board.getBitBoard();
+        core.removeColor(moves.targets, BitBoard.colorIndex(getColor()));
+        core.addMoves(square, moves.targets, moves);
     }
 
-    void probeByDirectionVector(Board board, int row, int col, Position directionVector,
-                                HashSet<Position> availablePositions, int maxRowScale, int maxColScale) {
-        boolean encounteredIllegalMove = false;
-        for (int i = 1, j = 1; 0 <= row + (directionVector.row * i) && row + (directionVector.row * i) < board.getRows()
-                && 0 <= col + (directionVector.col * j) && col + (directionVector.col * j) < board.getCols() &&
-                i <= maxRowScale && j <= maxColScale && !encounteredIllegalMove; i++, j++) {
-
-            Position newPosition = new Position(row + (directionVector.row * i), col + (directionVector.col * j));
-
-            if (isASpace(board, newPosition)) {
-                if (hasAPiece(board, newPosition)) {
-                    encounteredIllegalMove = true;
-                    if (colorsAreDifferent(board, newPosition)) {
-                        availablePositions.add(newPosition);
-                    }
-                }
-            } else {
-                encounteredIllegalMove = true;
-            }
-//            encounteredIllegalMove = !legalMove(board, newPosition);
-
-            if (!encounteredIllegalMove) {
-                availablePositions.add(newPosition);
-            }
-        }
+    /**
+     * @return true if this piece, standing on pBefore, is able to move to pAfter.
+     */
+    boolean canMoveTo(Board board, Position pBefore, Position pAfter) {
+        MoveList moves = new MoveList();
+        generateMoves(board, pBefore.row, pBefore.col, moves);
+        return moves.contains(BitBoard.square(pBefore.row, pBefore.col), BitBoard.square(pAfter.row, pAfter.col));
     }
 
     /**
@@ -100,7 +83,7 @@ public abstract class Piece implements Serializable {
      * @return A Status indicating whether the move was successful, or not.
      */
     Status move(Board board, Position pBefore, Position pAfter) {
-        if (getAvailableMoves(board, pBefore).contains(pAfter)) {
+        if (canMoveTo(board, pBefore, pAfter)) {
             board.getSpace(pAfter).setPiece(this);
             board.getSpace(pBefore).setPiece(null);
 
@@ -110,11 +93,41 @@ public abstract class Piece implements Serializable {
         }
     }
 
+    /**
+     * @return a new piece of the same type and color, that has moved the same number of times.
+     */
+    Piece copy() {
+        Piece piece = create(getType(), getColor());
+        piece.setMoveCount(getMoveCount());
+        return piece;
+    }
+
+    /**
+     * Creates a new piece of the given type and color.
+     */
+    static Piece create(ChessPieceType type, String color) {
+        switch (type) {
+            case PAWN:
+                return new Pawn(color);
+            case BISHOP:
+                return new Bishop(color);
+            case KING:
+                return new King(color);
+            case QUEEN:
+                return new Queen(color);
+            case ROOK:
+                return new Rook(color);
+            case KNIGHT:
+                return new Knight(color);
+            default:
+                throw new IllegalArgumentException("Unknown piece type: " + type);
+        }
+    }
+
     /**
      * The AI is expected to make decisions based on the idea that different pieces are of different worth.
      * The value that this method returns determines the Piece's worth to the AI.
      */
-    @SuppressWarnings("unused")
     public abstract int getValue();
 
     /**
@@ -169,7 +182,7 @@ public abstract class Piece implements Serializable {
 
     @Override
     public int hashCode() {
-        return super.hashCode();
+        return Objects.hash(getType(), getColor());
     }
 
     @Override
@@ -0,0 +1,48 @@
+/**
+ * Starting piece layouts, shared by the games and by the tools that set up positions without a UI.
+ */
+class PieceLayout {
+
+    private PieceLayout() {
+    }
+
+    /**
+     * Places the pieces of a normal chess game on an 8x8 board, black on the top rows.
+     */
+    static void standardChess(Board board) {
+        int lastRow = board.getRows() - 1;
+        for (int i = 0; i < board.getCols(); i++) {
+            board.setSpace(new Space(new Pawn("black")), 1, i);
+            board.setSpace(new Space(new Pawn("white")), lastRow - 1, i);
+        }
+
+        initRoyalRow(board, "black", 0, 0);
+        initRoyalRow(board, "white", lastRow, 0);
+    }
+
+    /**
+     * Places the pieces in the middle of a random 16x16 board (see Board(boolean)), black on the top.
+     */
+    static void randomChess(Board board) {
+        initPiecesForColor(board, "white", 11, 10);
+        initPiecesForColor(board, "black", 4, 5);
+    }
+
+    private static void initPiecesForColor(Board board, String color, int royalRow, int pawnRow) {
+        initRoyalRow(board, color, royalRow, 4);
+        for (int i = 4; i < 12; i++) {
+            board.setSpace(new Space(new Pawn(color)), pawnRow, i);
+        }
+    }
+
+    private static void initRoyalRow(Board board, String color, int row, int firstCol) {
+        board.setSpace(new Space(new Rook(color)), row, firstCol);
+        board.setSpace(new Space(new Knight(color)), row, firstCol + 1);
+        board.setSpace(new Space(new Bishop(color)), row, firstCol + 2);
+        board.setSpace(new Space(new Queen(color)), row, firstCol + 3);
+        board.setSpace(new Space(new King(color)), row, firstCol + 4);
+        board.setSpace(new Space(new Bishop(color)), row, firstCol + 5);
+        board.setSpace(new Space(new Knight(color)), row, firstCol + 6);
+        board.setSpace(new Space(new Rook(color)), row, firstCol + 7);
+    }
+}
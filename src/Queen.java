@@ -1,5 +1,3 @@
-import java.util.HashSet;
-
 public class Queen extends Piece {
 
     private String color;
@@ -12,10 +10,8 @@ public class Queen extends Piece {
     }
 
     @Override
-    public HashSet<Position> getAvailableMoves(Board board, int row, int col) {
-        HashSet<Position> availableMoves = new HashSet<>(getAvailableDiagonalMoves(board, row, col));
-        availableMoves.addAll(getAvailableHorizontalVerticalMoves(board, row, col));
-        return availableMoves;
+    void generateMoves(Board board, int row, int col, MoveList moves) {
+        generateSlidingMoves(board, row, col, true, true, moves);
     }
 
     @Override
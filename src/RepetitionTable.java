@@ -0,0 +1,94 @@
+import java.util.Arrays;
+
+/**
+ * Counts how many times each position (by its Zobrist key) has occurred in a game.
+ * An open addressing hash table of primitive longs and ints, so that counting and looking up a position is O(1) and
+ * doesn't create any objects.
+ */
+class RepetitionTable {
+
+    private long[] keys;
+    private int[] counts; //A count of 0 marks an empty slot.
+    private int size;
+
+    RepetitionTable() {
+        this(256);
+    }
+
+    private RepetitionTable(int capacity) {
+        keys = new long[capacity];
+        counts = new int[capacity];
+    }
+
+    /**
+     * Records one more occurrence of the position.
+     *
+     * @return the number of times the position has occurred, including this one.
+     */
+    int increment(long key) {
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        int slot = find(key);
+        if (counts[slot] == 0) {
+            keys[slot] = key;
+            size++;
+        } else if (counts[slot] < 0) {
+            counts[slot] = 0;
+        }
+        return ++counts[slot];
+    }
+
+    /**
+     * Forgets one occurrence of the position, for example when a move is taken back.
+     */
+    void decrement(long key) {
+        int slot = find(key);
+        if (counts[slot] > 1) {
+            counts[slot]--;
+        } else if (counts[slot] == 1) {
+            //The slot stays reserved for the key, so that probing for other keys still works.
+            counts[slot] = -1;
+        }
+    }
+
+    /**
+     * @return the number of times the position has occurred.
+     */
+    int count(long key) {
+        int count = counts[find(key)];
+        return Math.max(count, 0);
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+
+    /**
+     * @return the slot holding the key, or the empty slot where it would be inserted.
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (counts[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldCounts.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCounts[i] != 0) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+}
@@ -1,9 +1,7 @@
-import java.util.HashSet;
-
 public class Rook extends Piece {
 
     private String color;
-    private int value;
+    private int value = 5;
     private ChessPieceType chessPieceType = ChessPieceType.ROOK;
     private int moveCount;
 
@@ -12,8 +10,8 @@ public class Rook extends Piece {
     }
 
     @Override
-    public HashSet<Position> getAvailableMoves(Board board, int row, int col) {
-        return getAvailableHorizontalVerticalMoves(board, row, col);
+    void generateMoves(Board board, int row, int col, MoveList moves) {
+        generateSlidingMoves(board, row, col, true, false, moves);
     }
 
     @Override
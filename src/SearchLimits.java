@@ -0,0 +1,29 @@
+/**
+ * How long the Engine is allowed to search for a move: a maximum depth (in plies), a number of nodes and an amount of
+ * time. The search stops at whichever limit is reached first, and always completes at least a one ply search.
+ */
+class SearchLimits {
+    static final int UNLIMITED = -1;
+
+    final int maxDepth;
+    final long maxNodes;
+    final long maxTimeMillis;
+
+    SearchLimits(int maxDepth, long maxNodes, long maxTimeMillis) {
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.maxTimeMillis = maxTimeMillis;
+    }
+
+    static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, UNLIMITED, UNLIMITED);
+    }
+
+    static SearchLimits nodes(long maxNodes) {
+        return new SearchLimits(UNLIMITED, maxNodes, UNLIMITED);
+    }
+
+    static SearchLimits time(long maxTimeMillis) {
+        return new SearchLimits(UNLIMITED, UNLIMITED, maxTimeMillis);
+    }
+}
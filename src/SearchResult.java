@@ -0,0 +1,35 @@
+/**
+ * The outcome of an Engine search: the best move found and what the search knows about it.
+ */
+class SearchResult {
+    final int move; //Packed move (see Move), or Move.NONE if the side to move has no legal move.
+    final int score; //In centipawns, from the point of view of the side to move.
+    final int depth; //Depth of the last completed iteration.
+    final long nodes;
+    final long timeMillis;
+
+    SearchResult(int move, int score, int depth, long nodes, long timeMillis) {
+        this.move = move;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+    }
+
+    boolean hasMove() {
+        return move != Move.NONE;
+    }
+
+    /**
+     * @return true if the score means that one side can force checkmate.
+     */
+    boolean isMateScore() {
+        return Math.abs(score) >= Engine.MATE - Engine.MAX_PLY;
+    }
+
+    @Override
+    public String toString() {
+        return (hasMove() ? Move.toString(move) : "none") + " score " + score + " depth " + depth + " nodes " + nodes
+                + " time " + timeMillis + "ms";
+    }
+}
@@ -0,0 +1,230 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays complete games without a UI, on as many threads as asked, and prints statistics about them: games per second,
+ * how the games ended, their average length and how often each effect was triggered.
+ * <p>
+ * Games follow the rules of BoardPanel: moves are legal if they don't leave the king in check, a piece landing on an
+ * effect tile triggers the effect (random outcomes are drawn from the game's generator), pawns promote to queens, and
+ * a game ends in checkmate, stalemate, threefold repetition or a fifty move draw (fifty moves without a capture).
+ * Games still going after the move limit are counted as unfinished. The moves are played through a GameRecord, as in
+ * BoardPanel and GameManagerText, so the repetitions are counted by the same code.
+ * <p>
+ * The seed of each game, which its board and its random events come from, is drawn in order from a generator seeded
+ * with the run's seed before the games start. A run can be repeated, and gives the same results on any number of
+ * threads; the games don't share a generator.
+ * <p>
+ * The players are random, Engine (--nodes is its node limit) or MctsEngine on one thread with progressive widening
+ * (--nodes is its playout limit, and its playouts are drawn from the game's seed).
+ * <p>
+ * Usage: java Simulator [--games n] [--threads n] [--player random|engine|mcts] [--nodes n]
+ * [--layout random|standard] [--seed n] [--max-plies n]
+ */
+class Simulator {
+
+    enum Player {
+        RANDOM, ENGINE, MCTS
+    }
+
+    enum Result {
+        WHITE_WINS, BLACK_WINS, STALEMATE, THREEFOLD_REPETITION, FIFTY_MOVE_DRAW, UNFINISHED
+    }
+
+    private int games = 1000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Player player = Player.RANDOM;
+    private long engineNodes = 2000;
+    private boolean randomLayout = true;
+    private long seed = 42;
+    private int maxPlies = 1000;
+
+    public static void main(String[] args) {
+        Simulator simulator = new Simulator();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--games":
+                    simulator.games = Integer.parseInt(value);
+                    break;
+                case "--threads":
+                    simulator.threads = Math.max(1, Integer.parseInt(value));
+                    break;
+                case "--player":
+                    simulator.player = Player.valueOf(value.toUpperCase());
+                    break;
+                case "--nodes":
+                    simulator.engineNodes = Long.parseLong(value);
+                    break;
+                case "--layout":
+                    simulator.randomLayout = !value.equals("standard");
+                    break;
+                case "--seed":
+                    simulator.seed = Long.parseLong(value);
+                    break;
+                case "--max-plies":
+                    simulator.maxPlies = Integer.parseInt(value);
+                    break;
+                default:
+                    System.out.println("Unknown option " + args[i]);
+                    return;
+            }
+        }
+        simulator.run();
+    }
+
+    private void run() {
+        System.out.println("Simulating " + games + " games on " + threads + " threads, "
+                + (player == Player.RANDOM ? "random" : player.name().toLowerCase() + " (" + engineNodes
+                + (player == Player.MCTS ? " playouts" : " nodes") + " a move)") + " players, "
+                + (randomLayout ? "random" : "standard") + " layout, seed " + seed);
+
+        long[] gameSeeds = new long[games];
+        GameRandom seeds = new GameRandom(seed);
+        for (int i = 0; i < games; i++) {
+            gameSeeds[i] = seeds.nextLong();
+        }
+
+        long start = System.nanoTime();
+        AtomicInteger nextGame = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Stats>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(executor.submit(() -> {
+                Stats stats = new Stats();
+                Engine engine = player == Player.ENGINE ? new Engine() : null;
+                int game;
+                while ((game = nextGame.getAndIncrement()) < games) {
+                    MctsEngine mcts = player == Player.MCTS
+                            ? new MctsEngine(1, true, gameSeeds[game], 1 << 20) : null;
+                    playGame(gameSeeds[game], engine, mcts, stats);
+                }
+                return stats;
+            }));
+        }
+
+        Stats total = new Stats();
+        try {
+            for (Future<Stats> worker : workers) {
+                total.add(worker.get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+            return;
+        } finally {
+            executor.shutdown();
+        }
+
+        total.print((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Plays the game of the given seed to the end and adds it to the stats.
+     *
+     * @param engine plays both sides, or null.
+     * @param mcts   plays both sides if engine is null, or null for random moves.
+     */
+    void playGame(long gameSeed, Engine engine, MctsEngine mcts, Stats stats) {
+        if (engine != null) {
+            engine.clearTable(); //Otherwise the moves would depend on the games the thread played before.
+        }
+        Board board;
+        if (randomLayout) {
+            board = new Board(true, gameSeed);
+            PieceLayout.randomChess(board);
+        } else {
+            board = new Board();
+            PieceLayout.standardChess(board);
+        }
+        GameRecord record = new GameRecord(new GameState("white", board, null, gameSeed));
+        GameState state = record.getCurrentState();
+        board = state.getBoard();
+        GameRandom random = state.getRandom();
+        SearchLimits limits = SearchLimits.nodes(engineNodes);
+        MoveList moves = new MoveList();
+
+        Result result = Result.UNFINISHED;
+        int plies = 0;
+        while (plies < maxPlies) {
+            moves.clear();
+            state.availableMoves(board, moves);
+            if (moves.isEmpty()) {
+                if (board.kingInCheck(state.getTurnColor())) {
+                    result = state.getTurnColor().equals("white") ? Result.BLACK_WINS : Result.WHITE_WINS;
+                } else {
+                    result = Result.STALEMATE;
+                }
+                break;
+            }
+            //BoardPanel checks for repetitions and fifty move draws only when the player to move has a move.
+            if (record.isThreeFoldDraw()) {
+                result = Result.THREEFOLD_REPETITION;
+                break;
+            }
+            if (state.fiftyMoveDraw()) {
+                result = Result.FIFTY_MOVE_DRAW;
+                break;
+            }
+
+            int move;
+            if (engine != null) {
+                move = engine.search(state, limits).move;
+            } else if (mcts != null) {
+                move = mcts.search(state, limits).move;
+            } else {
+                move = moves.get(random.nextInt(moves.size()));
+            }
+
+            EffectResult effect = record.play(move, GameState.NO_EFFECT);
+            if (effect != null) {
+                stats.effectTriggers[effect.type.ordinal()]++;
+            }
+            plies++;
+        }
+
+        stats.games++;
+        stats.plies += plies;
+        stats.results[result.ordinal()]++;
+    }
+
+    /**
+     * Totals of a number of games.
+     */
+    static class Stats {
+        long games;
+        long plies;
+        final long[] results = new long[Result.values().length];
+        final long[] effectTriggers = new long[Effect.EffectType.values().length];
+
+        void add(Stats other) {
+            games += other.games;
+            plies += other.plies;
+            for (int i = 0; i < results.length; i++) {
+                results[i] += other.results[i];
+            }
+            for (int i = 0; i < effectTriggers.length; i++) {
+                effectTriggers[i] += other.effectTriggers[i];
+            }
+        }
+
+        void print(double seconds) {
+            System.out.printf("%d games in %.2fs, %.1f games/s, %.0f plies/s%n", games, seconds, games / seconds,
+                    plies / seconds);
+            System.out.printf("Average length: %.1f plies%n", games > 0 ? (double) plies / games : 0);
+            for (Result result : Result.values()) {
+                long count = results[result.ordinal()];
+                System.out.printf("%-22s %8d  %5.1f%%%n", result, count, games > 0 ? 100.0 * count / games : 0);
+            }
+            for (Effect.EffectType type : Effect.EffectType.values()) {
+                long count = effectTriggers[type.ordinal()];
+                System.out.printf("%-22s %8d  %.2f per game, %.2f per 100 plies%n", type + " triggered", count,
+                        games > 0 ? (double) count / games : 0, plies > 0 ? 100.0 * count / plies : 0);
+            }
+        }
+    }
+}
@@ -1,6 +1,5 @@
 import java.io.Serializable;
 import java.util.Objects;
-import java.util.Random;
 
 /**
  * Represents on tile on a Board instance.
@@ -10,6 +9,10 @@ public class Space implements Serializable {
     private Piece p; //Piece that is on this Space. If it is empty, then there is no piece on this Space.
     private Effect effect; //Effect on the space.
 
+    private Board board; //Board this Space is placed on, notified of every change. Null if it is not on a board.
+    private int row;
+    private int col;
+
     /**
      * Default constructor.
      * Sets p to null.
@@ -21,11 +24,15 @@ public class Space implements Serializable {
         effect = null;
     }
 
-    public Space(boolean isRandom) {
+    /**
+     * Creates an empty Space that may get a random effect, drawn from the given generator.
+     *
+     * @param randomNum the generator, or null for a Space without an effect.
+     */
+    Space(GameRandom randomNum) {
 
         p = null;
-        if (isRandom) {
-            Random randomNum = new Random();
+        if (randomNum != null) {
             int randInt = randomNum.nextInt(20); //20 makes it so that each effect has a 5% chance of generating.
 
             //5% chance of generating a bomb space.
@@ -68,7 +75,11 @@ public class Space implements Serializable {
      * @param P Piece to place on this Space.
      */
     public void setPiece(Piece P) {
+        Piece oldPiece = p;
         p = P;
+        if (board != null) {
+            board.pieceChanged(row, col, oldPiece, P);
+        }
     }
 
     public Effect getEffect() {
@@ -76,7 +87,21 @@ public class Space implements Serializable {
     }
 
     public void setEffect(Effect e) {
+        Effect oldEffect = effect;
         effect = e;
+        if (board != null) {
+            board.effectChanged(row, col, oldEffect, e);
+        }
+    }
+
+    /**
+     * Links this Space to the Board (and the location in it) that it has been placed on.
+     * Called by Board.setSpace; pass null to detach the Space from its Board.
+     */
+    void attach(Board board, int row, int col) {
+        this.board = board;
+        this.row = row;
+        this.col = col;
     }
 
     @Override
@@ -91,8 +116,4 @@ public class Space implements Serializable {
     public int hashCode() {
         return Objects.hash(p);
     }
-
-    public void doEffect(Space s, Board b, Position p, BoardButton[][] buttons) {
-        s.getEffect().doEffect(s, b, p, buttons);
-    }
 }
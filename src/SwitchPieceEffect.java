@@ -1,40 +1,33 @@
-import java.util.Random;
-
 public class SwitchPieceEffect extends Effect {
 
     private EffectType effectType = EffectType.SwitchPiece;
 
-    public void doEffect(Space s, Board b, Position p, BoardButton[][] buttons){
-        if(s.getPiece().getType()!=Piece.ChessPieceType.KING){
-            AudioManager.getInstance().playTele();
-            String color = s.getPiece().getColor();
-            Random randomNum = new Random();
-            Piece newPiece;
-            int randInt = randomNum.nextInt(5);
-            switch (randInt){
-                case 0:
-                    newPiece = new Pawn(color);
-                    break;
-                case 1:
-                    newPiece = new Rook(color);
-                    break;
-                case 2:
-                    newPiece = new Knight(color);
-                    break;
-                case 3:
-                    newPiece = new Bishop(color);
-                    break;
-                case 4:
-                    newPiece = new Queen(color);
-                    break;
-                default:
-                    newPiece = s.getPiece();
-                    break;
-            }
-            s.setPiece(newPiece);
-            System.out.println("Landed on switch piece");
+    //The piece types a piece can be switched to, one per outcome.
+    private static final Piece.ChessPieceType[] SWITCH_TYPES = {
+            Piece.ChessPieceType.PAWN,
+            Piece.ChessPieceType.ROOK,
+            Piece.ChessPieceType.KNIGHT,
+            Piece.ChessPieceType.BISHOP,
+            Piece.ChessPieceType.QUEEN
+    };
+
+    /**
+     * Turns the piece on p, unless it is a king, into the piece type of the outcome, keeping its color.
+     */
+    EffectResult apply(Board b, Position p, int outcome) {
+        EffectResult switched = new EffectResult(effectType, p, outcome);
+        Space s = b.getSpace(p);
+        if (s.getPiece() != null && s.getPiece().getType() != Piece.ChessPieceType.KING) {
+            switched.addReplaced(p, s.getPiece());
+            s.setPiece(Piece.create(SWITCH_TYPES[outcome], s.getPiece().getColor()));
         }
+        return switched;
+    }
 
+    @Override
+    int getOutcomeCount(Board b, Position p) {
+        Piece piece = b.getSpace(p).getPiece();
+        return piece != null && piece.getType() != Piece.ChessPieceType.KING ? SWITCH_TYPES.length : 1;
     }
 
     public EffectType getType(){
@@ -1,15 +1,38 @@
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.util.LinkedList;
 
 /**
  * Used to output chess board (and a "console" output of text) to System.out
+ * <p>
+ * On a terminal that understands ANSI escape codes, the screen is drawn in full once, then each printBoard only
+ * rewrites the squares that changed since the last one, and scrolls the new console lines into the console's own
+ * scrolling region. Elsewhere (output to a file or a pipe, or a terminal without TERM set) the whole board and
+ * console are printed each time, below enough blank lines to push the last one off the screen. Either way, the text
+ * is written through one buffered writer and flushed once per board.
  */
 public class TextActuator {
 
+    private static final String ESC = "\u001b["; //Starts an ANSI control sequence.
+    private static final int CELL_WIDTH = 8; //Columns of a square: its border and the text up to the next tab stop.
+
     private LinkedList<String> consoleQueue = new LinkedList<>(); //List of items to be printed in console.
     private int numberOfConsoleLines; //Number of lines of consoleQueue to print when printing console
     private int oldSize = 0;
     private boolean useAscii = false;
 
+    private final PrintWriter out;
+    private final boolean ansi;
+
+    //Text of each square on the screen, which printBoard compares the board with. Null until the screen is drawn.
+    private String[][] shownSquares;
+
+    //The parts of the board that don't change, made for the width of the board.
+    private int chromeCols = -1;
+    private String horizontalDivider;
+    private String letterRow;
+
     public TextActuator(){
         this (0);
     }
@@ -20,12 +43,23 @@ public class TextActuator {
      * @param size Max lines that the "console" can have
      */
     public TextActuator(int size) {
-        numberOfConsoleLines = size;
+        this(size, false);
     }
 
     public TextActuator(int size, boolean useAscii) {
+        this(size, useAscii, new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 14)),
+                System.console() != null && System.getenv("TERM") != null && !System.getenv("TERM").equals("dumb"));
+    }
+
+    /**
+     * @param out  where the board is written. It is flushed after each board.
+     * @param ansi whether to redraw only what changed, with ANSI escape codes.
+     */
+    TextActuator(int size, boolean useAscii, PrintWriter out, boolean ansi) {
         numberOfConsoleLines = size;
         this.useAscii = useAscii;
+        this.out = out;
+        this.ansi = ansi;
     }
 
     /**
@@ -36,13 +70,113 @@ public class TextActuator {
      * @param board Instance of Board
      */
     public void printBoard(Board board) {
-        String s = "\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n\n";
+        if (!ansi) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 35; i++) {
+                sb.append('\n');
+            }
+            sb.append(printSpaceArray(board.getBoard(), board.getRows(), board.getCols(), useAscii));
+            sb.append(printConsole());
+            out.println(sb);
+        } else if (shownSquares == null || shownSquares.length != board.getRows()
+                || shownSquares[0].length != board.getCols()) {
+            drawScreen(board);
+        } else {
+            drawChanges(board);
+        }
+        out.flush();
+    }
 
-        s += printSpaceArray(board.getBoard(), board.getRows(), board.getCols(), useAscii);
+    /**
+     * Clears the screen and draws the board and the console, with the console lines as a scrolling region.
+     */
+    private void drawScreen(Board board) {
+        int rows = board.getRows();
+        int cols = board.getCols();
 
-        s += printConsole();
+        out.print(ESC + "r" + ESC + "2J" + ESC + "H"); //Whole screen scrolls, cleared, cursor home.
+        out.print(printSpaceArray(board.getBoard(), rows, cols, useAscii));
+        shownSquares = new String[rows][cols];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                shownSquares[row][col] = squareText(board.getSpace(row, col));
+            }
+        }
 
-        System.out.println(s);
+        if (numberOfConsoleLines > 0) {
+            int top = consoleLine(0);
+            out.print(ESC + top + ";" + (top + numberOfConsoleLines - 1) + "r");
+            int start = Math.max(0, consoleQueue.size() - numberOfConsoleLines);
+            for (int i = start; i < consoleQueue.size(); i++) {
+                moveTo(top + numberOfConsoleLines - (consoleQueue.size() - i), 1);
+                out.print(consoleQueue.get(i));
+            }
+        }
+        oldSize = consoleQueue.size();
+        moveTo(consoleLine(numberOfConsoleLines), 1);
+    }
+
+    /**
+     * Rewrites the squares whose text changed, scrolls the new console lines in and clears the input line.
+     */
+    private void drawChanges(Board board) {
+        for (int row = 0; row < shownSquares.length; row++) {
+            for (int col = 0; col < shownSquares[row].length; col++) {
+                String text = squareText(board.getSpace(row, col));
+                if (!text.equals(shownSquares[row][col])) {
+                    //The text of a piece can be wider than a character, so the square is blanked before it is written.
+                    moveTo(squareLine(row), squareColumn(col));
+                    out.print("       ");
+                    moveTo(squareLine(row), squareColumn(col));
+                    out.print(text);
+                    shownSquares[row][col] = text;
+                }
+            }
+        }
+
+        if (numberOfConsoleLines > 0 && consoleQueue.size() > oldSize) {
+            moveTo(consoleLine(numberOfConsoleLines - 1), 1);
+            int start = Math.max(oldSize, consoleQueue.size() - numberOfConsoleLines);
+            for (int i = start; i < consoleQueue.size(); i++) {
+                out.print("\r\n"); //At the bottom of the scrolling region, scrolls the console up a line.
+                out.print(consoleQueue.get(i));
+            }
+        }
+        oldSize = consoleQueue.size();
+
+        moveTo(consoleLine(numberOfConsoleLines), 1);
+        out.print(ESC + "J"); //Clears what was typed after the last board.
+    }
+
+    private void moveTo(int line, int column) {
+        out.print(ESC + line + ";" + column + "H");
+    }
+
+    //Lines and columns of the screen, from 1, as laid out by printSpaceArray.
+    private static int squareLine(int row) {
+        return 3 + 2 * row;
+    }
+
+    private static int squareColumn(int col) {
+        return CELL_WIDTH + CELL_WIDTH * col + 2;
+    }
+
+    private int consoleLine(int line) {
+        return squareLine(shownSquares.length) + 1 + line;
+    }
+
+    /**
+     * @return what printSpaceArray writes in the square, between its border and the next tab stop.
+     */
+    private String squareText(Space space) {
+        if (space == null) {
+            return "##";
+        }
+        Piece piece = space.getPiece();
+        if (piece == null) {
+            return "";
+        }
+        return useAscii ? asciiChessCharacters(piece) : letterChessCharacters(piece);
     }
 
     /**
@@ -53,12 +187,17 @@ public class TextActuator {
      * @return
      */
     String printSpaceArray(Space[][] spaces, int rows, int cols, boolean asciiEnabled) {
+        if (chromeCols != cols) {
+            horizontalDivider = getHorizontalDivider(cols);
+            letterRow = letterRow(cols);
+            chromeCols = cols;
+        }
         StringBuilder sb = new StringBuilder();
 
-        sb.append(letterRow(rows));
+        sb.append(letterRow);
         for (int i = 0; i < rows; i++) {
             Space[] row = spaces[i];
-            sb.append(getHorizontalDivider(rows));
+            sb.append(horizontalDivider);
 
             int rowNum = rows - i;
 
@@ -82,8 +221,8 @@ public class TextActuator {
             sb.append("|\t").append(rowNum).append("\n");
         }
 
-        sb.append(getHorizontalDivider(rows));
-        sb.append(letterRow(rows));
+        sb.append(horizontalDivider);
+        sb.append(letterRow);
         return sb.toString();
     }
 
@@ -0,0 +1,150 @@
+import java.util.Arrays;
+
+/**
+ * Fixed size table of search results, keyed by the Zobrist key of a position with the side to move (see
+ * GameState.getZobristKey). It can be shared by any number of search threads without locking.
+ * <p>
+ * Each entry is two longs: the packed data, and the key XORed with the data. A probe only accepts an entry if the two
+ * XOR back to the probed key, so an entry torn by two threads writing it at the same time reads as a miss instead of
+ * as the result of another position.
+ * <p>
+ * Entries are grouped in buckets of BUCKET_SIZE. A new position replaces the least useful entry of its bucket: an
+ * empty one, else the one with the lowest depth, where every search since an entry was stored (see newSearch) counts
+ * against it as AGE_PENALTY plies of depth.
+ */
+class TranspositionTable {
+
+    //Bound types. The score is exact, at least (fail high) or at most (fail low) the stored score.
+    static final int EXACT = 1;
+    static final int LOWER = 2;
+    static final int UPPER = 3;
+
+    static final long MISS = 0; //Never valid data, since every stored entry has a bound.
+
+    static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_SIZE = 4;
+    private static final int AGE_PENALTY = 8;
+
+    private static final int MOVE_BITS = 20;
+    private static final int SCORE_BITS = 22;
+    private static final int DEPTH_BITS = 8;
+    private static final int BOUND_BITS = 2;
+    private static final int AGE_BITS = 8;
+
+    private static final int SCORE_SHIFT = MOVE_BITS;
+    private static final int DEPTH_SHIFT = SCORE_SHIFT + SCORE_BITS;
+    private static final int BOUND_SHIFT = DEPTH_SHIFT + DEPTH_BITS;
+    private static final int AGE_SHIFT = BOUND_SHIFT + BOUND_BITS;
+
+    private static final int SCORE_OFFSET = 1 << (SCORE_BITS - 1); //Scores are stored unsigned.
+    private static final int AGE_MASK = (1 << AGE_BITS) - 1;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int bucketMask;
+    private int age;
+
+    /**
+     * @param megabytes the size of the table. The number of entries is rounded down to a power of two.
+     */
+    TranspositionTable(int megabytes) {
+        long entries = Math.max(1, megabytes) * (1L << 20) / ENTRY_BYTES;
+        int size = (int) Math.max(BUCKET_SIZE, Long.highestOneBit(Math.min(entries, 1 << 30)));
+        keys = new long[size];
+        data = new long[size];
+        bucketMask = size - BUCKET_SIZE;
+    }
+
+    /**
+     * @return the data stored for the key, or MISS. Read it with move, score, depth and bound.
+     */
+    long probe(long key) {
+        int bucket = bucket(key);
+        for (int i = bucket; i < bucket + BUCKET_SIZE; i++) {
+            long entry = data[i];
+            if ((keys[i] ^ entry) == key && entry != MISS) {
+                return entry;
+            }
+        }
+        return MISS;
+    }
+
+    void store(long key, int move, int score, int depth, int bound) {
+        int bucket = bucket(key);
+        int replaced = bucket;
+        int lowestWorth = Integer.MAX_VALUE;
+
+        for (int i = bucket; i < bucket + BUCKET_SIZE; i++) {
+            long entry = data[i];
+            if (entry == MISS) {
+                if (lowestWorth > Integer.MIN_VALUE) {
+                    replaced = i;
+                    lowestWorth = Integer.MIN_VALUE;
+                }
+            } else if ((keys[i] ^ entry) == key) {
+                //Same position: keep the move it already knows if this result doesn't have one.
+                if (move == Move.NONE) {
+                    move = move(entry);
+                }
+                replaced = i;
+                break;
+            } else {
+                int worth = depth(entry) - AGE_PENALTY * ((age - age(entry)) & AGE_MASK);
+                if (worth < lowestWorth) {
+                    replaced = i;
+                    lowestWorth = worth;
+                }
+            }
+        }
+
+        long entry = (move & ((1L << MOVE_BITS) - 1))
+                | (long) (score + SCORE_OFFSET) << SCORE_SHIFT
+                | (long) depth << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) age << AGE_SHIFT;
+        data[replaced] = entry;
+        keys[replaced] = key ^ entry;
+    }
+
+    /**
+     * Marks the start of a new search, so that the entries of earlier searches are replaced first.
+     * Call it before the search threads start.
+     */
+    void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+        age = 0;
+    }
+
+    int size() {
+        return data.length;
+    }
+
+    private int bucket(long key) {
+        return (int) (key ^ (key >>> 32)) & bucketMask;
+    }
+
+    static int move(long entry) {
+        return (int) (entry & ((1L << MOVE_BITS) - 1));
+    }
+
+    static int score(long entry) {
+        return (int) ((entry >>> SCORE_SHIFT) & ((1L << SCORE_BITS) - 1)) - SCORE_OFFSET;
+    }
+
+    static int depth(long entry) {
+        return (int) ((entry >>> DEPTH_SHIFT) & ((1L << DEPTH_BITS) - 1));
+    }
+
+    static int bound(long entry) {
+        return (int) ((entry >>> BOUND_SHIFT) & ((1 << BOUND_BITS) - 1));
+    }
+
+    private static int age(long entry) {
+        return (int) ((entry >>> AGE_SHIFT) & AGE_MASK);
+    }
+}
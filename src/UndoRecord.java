@@ -0,0 +1,64 @@
+import java.util.Arrays;
+
+/**
+ * Records everything that changed on a Board since Board.makeMove, so that Board.unmakeMove can restore it.
+ * <p>
+ * Besides the move itself (the moved piece, its move count and the captured piece), every change that a Space on the
+ * board reports while the move is open is journaled: the pieces moved or removed, a Space replaced by
+ * Board.pawnToQueen, and anything an Effect does to the board. Records are pooled by the Board and reused.
+ */
+class UndoRecord {
+
+    static final int PIECE = 0; //A Space's piece was changed.
+    static final int SPACE = 1; //A Space was replaced by another one (or removed).
+    static final int EFFECT = 2; //A Space's effect was changed.
+
+    int move;
+    Piece movedPiece;
+    int movedPieceMoveCount;
+    Piece capturedPiece;
+
+    private int[] kinds = new int[8];
+    private int[] squares = new int[8];
+    private Object[] previousValues = new Object[8]; //Piece, Space or Effect that was there before the change.
+    private int size;
+
+    void reset(int move) {
+        this.move = move;
+        movedPiece = null;
+        capturedPiece = null;
+        movedPieceMoveCount = 0;
+        for (int i = 0; i < size; i++) {
+            previousValues[i] = null;
+        }
+        size = 0;
+    }
+
+    void record(int kind, int square, Object previousValue) {
+        if (size == kinds.length) {
+            kinds = Arrays.copyOf(kinds, size * 2);
+            squares = Arrays.copyOf(squares, size * 2);
+            previousValues = Arrays.copyOf(previousValues, size * 2);
+        }
+        kinds[size] = kind;
+        squares[size] = square;
+        previousValues[size] = previousValue;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getKind(int index) {
+        return kinds[index];
+    }
+
+    int getSquare(int index) {
+        return squares[index];
+    }
+
+    Object getPreviousValue(int index) {
+        return previousValues[index];
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys used to hash positions (Zobrist hashing).
+ * <p>
+ * A position's key is the XOR of the keys of everything in it: each existing square, each piece (by color, type and
+ * square), each effect (by type and square) and, for a GameState, the color whose turn it is. Since XOR is its own
+ * inverse, Board updates its key incrementally whenever a piece, effect or space changes.
+ * <p>
+ * The keys come from a fixed seed, so they are the same on every run and keys stored in saved games stay valid.
+ */
+final class Zobrist {
+
+    private static final long SEED = 0x5EED_C4E55L;
+
+    private static final int TYPES = Piece.ChessPieceType.values().length;
+
+    private static final long[] PIECES = new long[2 * TYPES * BitBoard.SQUARES];
+    private static final long[] EFFECTS = new long[Effect.EffectType.values().length * BitBoard.SQUARES];
+    private static final long[] SPACES = new long[BitBoard.SQUARES];
+    static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < PIECES.length; i++) {
+            PIECES[i] = random.nextLong();
+        }
+        for (int i = 0; i < EFFECTS.length; i++) {
+            EFFECTS[i] = random.nextLong();
+        }
+        for (int i = 0; i < SPACES.length; i++) {
+            SPACES[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    static long piece(Piece piece, int square) {
+        return piece(BitBoard.colorIndex(piece.getColor()), piece.getType(), square);
+    }
+
+    static long piece(int color, Piece.ChessPieceType type, int square) {
+        return PIECES[(color * TYPES + type.ordinal()) * BitBoard.SQUARES + square];
+    }
+
+    static long effect(Effect effect, int square) {
+        return EFFECTS[effect.getType().ordinal() * BitBoard.SQUARES + square];
+    }
+
+    static long space(int square) {
+        return SPACES[square];
+    }
+
+    static long turn(String turnColor) {
+        return "black".equals(turnColor) ? BLACK_TO_MOVE : 0;
+    }
+}